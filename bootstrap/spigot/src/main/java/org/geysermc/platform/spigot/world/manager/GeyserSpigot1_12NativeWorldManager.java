@@ -26,6 +26,7 @@
 package org.geysermc.platform.spigot.world.manager;
 
 import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.geysermc.adapters.spigot.SpigotAdapters;
 import org.geysermc.adapters.spigot.SpigotWorldAdapter;
@@ -34,6 +35,8 @@ import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import us.myles.ViaVersion.api.Via;
 import us.myles.ViaVersion.protocols.protocol1_13to1_12_2.storage.BlockStorage;
 
+import java.util.Arrays;
+
 /**
  * Used with ViaVersion and pre-1.13.
  */
@@ -56,4 +59,24 @@ public class GeyserSpigot1_12NativeWorldManager extends GeyserSpigot1_12WorldMan
         int blockId = adapter.getBlockAt(player.getWorld(), x, y, z);
         return getLegacyBlock(storage, blockId, x, y, z);
     }
+
+    @Override
+    public void getBlocksInRegion(GeyserSession session, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] blocks) {
+        Player player = Bukkit.getPlayer(session.getPlayerEntity().getUsername());
+        if (player == null) {
+            Arrays.fill(blocks, 0, sizeX * sizeY * sizeZ, BlockTranslator.JAVA_AIR_ID);
+            return;
+        }
+        World world = player.getWorld();
+        // Get block entity storage
+        BlockStorage storage = Via.getManager().getConnection(player.getUniqueId()).get(BlockStorage.class);
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    int blockId = adapter.getBlockAt(world, minX + x, minY + y, minZ + z);
+                    blocks[getRegionIndex(x, y, z, sizeX, sizeZ)] = getLegacyBlock(storage, blockId, minX + x, minY + y, minZ + z);
+                }
+            }
+        }
+    }
 }
@@ -42,6 +42,8 @@ import us.myles.ViaVersion.api.protocol.ProtocolVersion;
 import us.myles.ViaVersion.protocols.protocol1_13to1_12_2.Protocol1_13To1_12_2;
 import us.myles.ViaVersion.protocols.protocol1_13to1_12_2.storage.BlockStorage;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -83,6 +85,29 @@ public class GeyserSpigot1_12WorldManager extends GeyserSpigotWorldManager {
         return getLegacyBlock(storage, blockId, x, y, z);
     }
 
+    @Override
+    @SuppressWarnings("deprecation")
+    public void getBlocksInRegion(GeyserSession session, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] blocks) {
+        Player player = Bukkit.getPlayer(session.getPlayerEntity().getUsername());
+        if (player == null) {
+            Arrays.fill(blocks, 0, sizeX * sizeY * sizeZ, BlockTranslator.JAVA_AIR_ID);
+            return;
+        }
+        World world = player.getWorld();
+        // Get block entity storage
+        BlockStorage storage = Via.getManager().getConnection(player.getUniqueId()).get(BlockStorage.class);
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    Block block = world.getBlockAt(minX + x, minY + y, minZ + z);
+                    // Black magic that gets the old block state ID
+                    int blockId = (block.getType().getId() << 4) | (block.getData() & 0xF);
+                    blocks[getRegionIndex(x, y, z, sizeX, sizeZ)] = getLegacyBlock(storage, blockId, minX + x, minY + y, minZ + z);
+                }
+            }
+        }
+    }
+
     /**
      *
      * @param storage ViaVersion's block entity storage (used to fix block entity state differences)
@@ -134,6 +159,12 @@ public class GeyserSpigot1_12WorldManager extends GeyserSpigotWorldManager {
         }
     }
 
+    @Override
+    public void getBlocksInColumn(GeyserSession session, int x, int z, BitSet sectionsToRead, Chunk[] sections) {
+        // Chunk snapshots can't be read as block data before 1.13
+        getBlocksInSections(session, x, z, sectionsToRead, sections);
+    }
+
     @Override
     public boolean isLegacy() {
         return true;
@@ -72,6 +72,15 @@ public class GeyserSpigotLegacyNativeWorldManager extends GeyserSpigotNativeWorl
         return oldToNewBlockId.getOrDefault(nativeBlockId, nativeBlockId);
     }
 
+    @Override
+    public void getBlocksInRegion(GeyserSession session, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] blocks) {
+        super.getBlocksInRegion(session, minX, minY, minZ, sizeX, sizeY, sizeZ, blocks);
+        int size = sizeX * sizeY * sizeZ;
+        for (int i = 0; i < size; i++) {
+            blocks[i] = oldToNewBlockId.getOrDefault(blocks[i], blocks[i]);
+        }
+    }
+
     @Override
     public boolean isLegacy() {
         return true;
@@ -26,12 +26,15 @@
 package org.geysermc.platform.spigot.world.manager;
 
 import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.geysermc.adapters.spigot.SpigotAdapters;
 import org.geysermc.adapters.spigot.SpigotWorldAdapter;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 
+import java.util.Arrays;
+
 public class GeyserSpigotNativeWorldManager extends GeyserSpigotWorldManager {
     protected final SpigotWorldAdapter adapter;
 
@@ -48,4 +51,21 @@ public class GeyserSpigotNativeWorldManager extends GeyserSpigotWorldManager {
         }
         return adapter.getBlockAt(player.getWorld(), x, y, z);
     }
+
+    @Override
+    public void getBlocksInRegion(GeyserSession session, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] blocks) {
+        Player player = Bukkit.getPlayer(session.getPlayerEntity().getUsername());
+        if (player == null) {
+            Arrays.fill(blocks, 0, sizeX * sizeY * sizeZ, BlockTranslator.JAVA_AIR_ID);
+            return;
+        }
+        World world = player.getWorld();
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    blocks[getRegionIndex(x, y, z, sizeX, sizeZ)] = adapter.getBlockAt(world, minX + x, minY + y, minZ + z);
+                }
+            }
+        }
+    }
 }
@@ -31,9 +31,9 @@ import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
-import org.bukkit.block.Block;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Player;
 import org.geysermc.connector.GeyserConnector;
@@ -45,6 +45,10 @@ import org.geysermc.connector.utils.GameRule;
 import org.geysermc.connector.utils.LanguageUtils;
 
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The base world manager to use when there is no supported NMS revision
@@ -71,6 +75,11 @@ public class GeyserSpigotWorldManager extends GeyserWorldManager {
      * The key is the Spigot Biome ordinal; the value is the Minecraft Java biome numerical ID
      */
     private final Int2IntMap biomeToIdMap = new Int2IntOpenHashMap(Biome.values().length);
+    /**
+     * Java block state IDs of the block data seen so far, so block data only has to be turned into a string once.
+     * Block data is compared by its underlying block state, so there is one entry per block state.
+     */
+    private final Map<BlockData, Integer> blockDataToId = new ConcurrentHashMap<>();
 
     public GeyserSpigotWorldManager(boolean use3dBiomes) {
         this.use3dBiomes = use3dBiomes;
@@ -103,22 +112,88 @@ public class GeyserSpigotWorldManager extends GeyserWorldManager {
             return BlockTranslator.JAVA_AIR_ID;
         }
         World world = bukkitPlayer.getWorld();
-        return BlockTranslator.getJavaIdBlockMap().getOrDefault(world.getBlockAt(x, y, z).getBlockData().getAsString(), BlockTranslator.JAVA_AIR_ID);
+        return getBlockDataId(world.getBlockAt(x, y, z).getBlockData());
+    }
+
+    /**
+     * @param blockData the Bukkit block data
+     * @return the Java block state ID of the block data
+     */
+    protected int getBlockDataId(BlockData blockData) {
+        Integer id = blockDataToId.get(blockData);
+        if (id == null) {
+            id = BlockTranslator.getJavaIdBlockMap().getOrDefault(blockData.getAsString(), BlockTranslator.JAVA_AIR_ID);
+            blockDataToId.put(blockData, id);
+        }
+        return id;
     }
 
     @Override
-    public void getBlocksInSection(GeyserSession session, int x, int y, int z, Chunk chunk) {
+    public void getBlocksInRegion(GeyserSession session, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] blocks) {
         Player bukkitPlayer;
         if ((bukkitPlayer = Bukkit.getPlayer(session.getPlayerEntity().getUsername())) == null) {
+            Arrays.fill(blocks, 0, sizeX * sizeY * sizeZ, BlockTranslator.JAVA_AIR_ID);
             return;
         }
         World world = bukkitPlayer.getWorld();
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    blocks[getRegionIndex(x, y, z, sizeX, sizeZ)] = getBlockDataId(world.getBlockAt(minX + x, minY + y, minZ + z).getBlockData());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void getBlocksInSection(GeyserSession session, int x, int y, int z, Chunk chunk) {
+        ChunkSnapshot snapshot = getChunkSnapshot(session, x, z);
+        if (snapshot != null) {
+            readSection(snapshot, y, chunk);
+        }
+    }
+
+    @Override
+    public void getBlocksInColumn(GeyserSession session, int x, int z, BitSet sectionsToRead, Chunk[] sections) {
+        // Snapshot the column once for all of the sections
+        ChunkSnapshot snapshot = getChunkSnapshot(session, x, z);
+        if (snapshot == null) {
+            return;
+        }
+        for (int y = sectionsToRead.nextSetBit(0); y >= 0; y = sectionsToRead.nextSetBit(y + 1)) {
+            if (snapshot.isSectionEmpty(y)) {
+                // The section is already air
+                continue;
+            }
+            Chunk section = new Chunk();
+            readSection(snapshot, y, section);
+            sections[y] = section;
+        }
+    }
+
+    /**
+     * @return a snapshot of the chunk column in the player's world, or null if the player isn't on this server
+     */
+    private ChunkSnapshot getChunkSnapshot(GeyserSession session, int x, int z) {
+        Player bukkitPlayer;
+        if ((bukkitPlayer = Bukkit.getPlayer(session.getPlayerEntity().getUsername())) == null) {
+            return null;
+        }
+        return bukkitPlayer.getWorld().getChunkAt(x, z).getChunkSnapshot(false, false, false);
+    }
+
+    /**
+     * Read a section from a snapshot instead of looking up each block in the world
+     */
+    private void readSection(ChunkSnapshot snapshot, int y, Chunk chunk) {
+        if (snapshot.isSectionEmpty(y)) {
+            // The section is already air
+            return;
+        }
         for (int blockY = 0; blockY < 16; blockY++) { // Cache-friendly iteration order
             for (int blockZ = 0; blockZ < 16; blockZ++) {
                 for (int blockX = 0; blockX < 16; blockX++) {
-                    Block block = world.getBlockAt((x << 4) + blockX, (y << 4) + blockY, (z << 4) + blockZ);
-                    int id = BlockTranslator.getJavaIdBlockMap().getOrDefault(block.getBlockData().getAsString(), BlockTranslator.JAVA_AIR_ID);
-                    chunk.set(blockX, blockY, blockZ, id);
+                    chunk.set(blockX, blockY, blockZ, getBlockDataId(snapshot.getBlockData(blockX, (y << 4) + blockY, blockZ)));
                 }
             }
         }
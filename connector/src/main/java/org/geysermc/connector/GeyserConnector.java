@@ -30,6 +30,9 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nukkitx.network.raknet.RakNetConstants;
 import com.nukkitx.protocol.bedrock.BedrockServer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.Getter;
 import lombok.Setter;
 import org.geysermc.common.PlatformType;
@@ -56,6 +59,10 @@ import org.geysermc.connector.network.translators.world.WorldManager;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.network.translators.world.block.entity.BlockEntityTranslator;
 import org.geysermc.connector.network.translators.world.block.entity.SkullBlockEntityTranslator;
+import org.geysermc.connector.network.translators.world.chunk.ChunkBlobCache;
+import org.geysermc.connector.network.translators.world.chunk.ChunkPayloadCache;
+import org.geysermc.connector.network.translators.world.chunk.ChunkTranslationExecutor;
+import org.geysermc.connector.scheduler.TickScheduler;
 import org.geysermc.connector.utils.DimensionUtils;
 import org.geysermc.connector.utils.LanguageUtils;
 import org.geysermc.connector.utils.LocaleUtils;
@@ -99,6 +106,13 @@ public class GeyserConnector {
     private boolean shuttingDown = false;
 
     private final ScheduledExecutorService generalThreadPool;
+    /**
+     * The threads sessions translate their packets and run their tick tasks on. Each session is bound to one of them,
+     * so its state is only changed by one thread while sessions are spread across all of them.
+     */
+    private final EventLoopGroup sessionEventLoopGroup;
+    private final ChunkTranslationExecutor chunkTranslationExecutor;
+    private final TickScheduler tickScheduler;
 
     private BedrockServer bedrockServer;
     private PlatformType platformType;
@@ -125,6 +139,9 @@ public class GeyserConnector {
         logger.info("******************************************");
 
         this.generalThreadPool = Executors.newScheduledThreadPool(config.getGeneralThreadPool());
+        this.sessionEventLoopGroup = new DefaultEventLoopGroup(0, new DefaultThreadFactory("Geyser session thread"));
+        this.chunkTranslationExecutor = new ChunkTranslationExecutor(config.getChunkThreadPool(), config.getChunkQueueLimit());
+        this.tickScheduler = new TickScheduler(logger);
 
         logger.setDebug(config.isDebugMode());
 
@@ -134,6 +151,8 @@ public class GeyserConnector {
         BiomeTranslator.init();
         BlockTranslator.init();
         BlockEntityTranslator.init();
+        ChunkPayloadCache.init();
+        ChunkBlobCache.init();
         EffectRegistry.init();
         EntityIdentifierRegistry.init();
         ItemRegistry.init();
@@ -306,6 +325,9 @@ public class GeyserConnector {
         }
 
         generalThreadPool.shutdown();
+        sessionEventLoopGroup.shutdownGracefully();
+        chunkTranslationExecutor.shutdown();
+        tickScheduler.shutdown();
         bedrockServer.close();
         players.clear();
         remoteServer = null;
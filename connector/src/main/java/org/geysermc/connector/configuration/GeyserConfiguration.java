@@ -81,6 +81,8 @@ public interface GeyserConfiguration {
 
     boolean isCacheChunks();
 
+    int getChunkCacheMemoryLimit();
+
     boolean isForceResourcePacks();
 
     boolean isXboxAchievementsEnabled();
@@ -136,9 +138,19 @@ public interface GeyserConfiguration {
 
     int getScoreboardPacketThreshold();
 
+    int getChunkPayloadCacheSize();
+
+    int getChunkBlobCacheSize();
+
+    int getChunkThreadPool();
+
+    int getChunkQueueLimit();
+
     // if u have offline mode enabled pls be safe
     boolean isEnableProxyConnections();
 
+    boolean isCacheLoginCertificates();
+
     int getMtu();
 
     boolean isUseAdapters();
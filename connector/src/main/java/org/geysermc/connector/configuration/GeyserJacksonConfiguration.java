@@ -101,6 +101,9 @@ public abstract class GeyserJacksonConfiguration implements GeyserConfiguration
     @JsonProperty("cache-chunks")
     private boolean cacheChunks = false;
 
+    @JsonProperty("chunk-cache-memory-limit")
+    private int chunkCacheMemoryLimit = 1024;
+
     @JsonProperty("cache-images")
     private int cacheImages = 0;
 
@@ -173,9 +176,24 @@ public abstract class GeyserJacksonConfiguration implements GeyserConfiguration
     @JsonProperty("scoreboard-packet-threshold")
     private int scoreboardPacketThreshold = 10;
 
+    @JsonProperty("chunk-payload-cache-size")
+    private int chunkPayloadCacheSize = 16;
+
+    @JsonProperty("chunk-blob-cache-size")
+    private int chunkBlobCacheSize = 32;
+
+    @JsonProperty("chunk-thread-pool")
+    private int chunkThreadPool = 0;
+
+    @JsonProperty("chunk-queue-limit")
+    private int chunkQueueLimit = 2048;
+
     @JsonProperty("enable-proxy-connections")
     private boolean enableProxyConnections = false;
 
+    @JsonProperty("cache-login-certificates")
+    private boolean cacheLoginCertificates = true;
+
     @JsonProperty("mtu")
     private int mtu = 1400;
 
@@ -33,10 +33,20 @@ import lombok.Getter;
 import org.geysermc.connector.GeyserConnector;
 import org.geysermc.connector.common.serializer.AsteriskSerializer;
 import org.geysermc.connector.configuration.GeyserConfiguration;
+import org.geysermc.connector.entity.Entity;
+import org.geysermc.connector.entity.type.EntityType;
 import org.geysermc.connector.network.BedrockProtocol;
 import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.network.session.cache.ChunkCache;
+import org.geysermc.connector.network.translators.PacketTranslatorRegistry;
+import org.geysermc.connector.network.translators.world.chunk.ChunkTranslationExecutor;
+import org.geysermc.connector.skin.SkinDataStore;
+import org.geysermc.connector.skin.SkinProvider;
+import org.geysermc.connector.scheduler.TickScheduler;
 import org.geysermc.connector.utils.DockerCheck;
 import org.geysermc.connector.utils.FileUtils;
+import org.geysermc.connector.utils.LoginEncryptionUtils;
+import org.geysermc.connector.utils.Timings;
 import org.geysermc.floodgate.util.DeviceOS;
 
 import java.io.IOException;
@@ -44,6 +54,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.Map;
 import java.util.Properties;
 
 @Getter
@@ -57,6 +68,13 @@ public class DumpInfo {
     private final GeyserConfiguration config;
     private Object2IntMap<DeviceOS> userPlatforms;
     private RamInfo ramInfo;
+    private ChunkCacheInfo chunkCacheInfo;
+    private TickSchedulerInfo tickSchedulerInfo;
+    private Map<EntityType, Long> metadataBytesSaved;
+    private SkinCacheInfo skinCacheInfo;
+    private LoginInfo loginInfo;
+    private TranslatorInfo translatorInfo;
+    private ChunkTranslationInfo chunkTranslationInfo;
     private final BootstrapDumpInfo bootstrapInfo;
 
     public DumpInfo() {
@@ -70,6 +88,13 @@ public class DumpInfo {
         this.config = GeyserConnector.getInstance().getConfig();
 
         this.ramInfo = new DumpInfo.RamInfo();
+        this.chunkCacheInfo = new DumpInfo.ChunkCacheInfo();
+        this.tickSchedulerInfo = new DumpInfo.TickSchedulerInfo();
+        this.metadataBytesSaved = Entity.getMetadataBytesSaved();
+        this.skinCacheInfo = new DumpInfo.SkinCacheInfo();
+        this.loginInfo = new DumpInfo.LoginInfo();
+        this.translatorInfo = new DumpInfo.TranslatorInfo();
+        this.chunkTranslationInfo = new DumpInfo.ChunkTranslationInfo();
 
         this.userPlatforms = new Object2IntOpenHashMap();
         for (GeyserSession session : GeyserConnector.getInstance().getPlayers()) {
@@ -163,4 +188,128 @@ public class DumpInfo {
             this.max = Runtime.getRuntime().maxMemory() / MEGABYTE;
         }
     }
+
+    @Getter
+    public static class ChunkCacheInfo {
+
+        private final long memoryUsage;
+        private final long memoryLimit;
+        private final int columns;
+        private final long radiusEvictions;
+        private final long budgetEvictions;
+        private final long refusedColumns;
+
+        ChunkCacheInfo() {
+            this.memoryUsage = ChunkCache.getTotalMemoryUsage() / MEGABYTE;
+            this.memoryLimit = GeyserConnector.getInstance().getConfig().getChunkCacheMemoryLimit();
+            this.columns = ChunkCache.getTotalColumnCount();
+            this.radiusEvictions = ChunkCache.getRadiusEvictions();
+            this.budgetEvictions = ChunkCache.getBudgetEvictions();
+            this.refusedColumns = ChunkCache.getRefusedColumns();
+        }
+    }
+
+    @Getter
+    public static class TickSchedulerInfo {
+
+        private final int scheduledTasks;
+        private final long overloadedTicks;
+        private final long skippedRuns;
+        private final Map<String, Timings> timings;
+
+        TickSchedulerInfo() {
+            TickScheduler tickScheduler = GeyserConnector.getInstance().getTickScheduler();
+            this.scheduledTasks = tickScheduler.getScheduledTasks();
+            this.overloadedTicks = tickScheduler.getOverloadedTicks();
+            this.skippedRuns = tickScheduler.getSkippedRuns();
+            this.timings = tickScheduler.getTimings();
+        }
+    }
+
+    @Getter
+    public static class SkinCacheInfo {
+
+        private final long memoryUsage;
+        private final long images;
+        private final long sharedImages;
+        private final long memoryHits;
+        private final long diskHits;
+        private final long misses;
+        private final double skinHitRate;
+        private final double capeHitRate;
+
+        SkinCacheInfo() {
+            SkinDataStore imageStore = SkinProvider.getImageStore();
+            this.memoryUsage = imageStore.getMemoryUsage() / MEGABYTE;
+            this.images = imageStore.getImageCount();
+            this.sharedImages = imageStore.getSharedImages();
+            this.memoryHits = imageStore.getMemoryHits();
+            this.diskHits = imageStore.getDiskHits();
+            this.misses = imageStore.getMisses();
+            this.skinHitRate = SkinProvider.getSkinHitRate();
+            this.capeHitRate = SkinProvider.getCapeHitRate();
+        }
+    }
+
+    @Getter
+    public static class LoginInfo {
+
+        private final long logins;
+        private final long rejectedLogins;
+        private final int queuedLogins;
+        private final double averageQueueMillis;
+        private final double maxQueueMillis;
+        private final double averageVerifyMillis;
+        private final long certificateCacheHits;
+
+        LoginInfo() {
+            this.logins = LoginEncryptionUtils.getLogins();
+            this.rejectedLogins = LoginEncryptionUtils.getRejectedLogins();
+            this.queuedLogins = LoginEncryptionUtils.getQueuedLogins();
+            this.averageQueueMillis = LoginEncryptionUtils.getAverageQueueMillis();
+            this.maxQueueMillis = LoginEncryptionUtils.getMaxQueueMillis();
+            this.averageVerifyMillis = LoginEncryptionUtils.getAverageVerifyMillis();
+            this.certificateCacheHits = LoginEncryptionUtils.getCertificateCacheHits();
+        }
+    }
+
+    @Getter
+    public static class TranslatorInfo {
+
+        private final Map<String, Timings> javaTimings;
+        private final Map<String, Timings> bedrockTimings;
+
+        TranslatorInfo() {
+            this.javaTimings = PacketTranslatorRegistry.JAVA_TRANSLATOR.getTimings();
+            this.bedrockTimings = PacketTranslatorRegistry.BEDROCK_TRANSLATOR.getTimings();
+        }
+    }
+
+    /**
+     * Chunk packets are translated on the chunk translation pool, so their translator timings only cover queueing them
+     */
+    @Getter
+    public static class ChunkTranslationInfo {
+
+        private final long submitted;
+        private final long completed;
+        private final long superseded;
+        private final long shed;
+        private final long deferred;
+        private final long stale;
+        private final int queued;
+        private final Timings timings;
+
+        ChunkTranslationInfo() {
+            ChunkTranslationExecutor executor = GeyserConnector.getInstance().getChunkTranslationExecutor();
+            this.submitted = executor.getSubmittedCount();
+            this.completed = executor.getCompletedCount();
+            this.superseded = executor.getSupersededCount();
+            this.shed = executor.getShedCount();
+            this.deferred = executor.getDeferredCount();
+            this.stale = executor.getStaleCount();
+            this.queued = executor.getQueuedCount();
+            this.timings = executor.getTimings();
+        }
+    }
 }
@@ -35,6 +35,7 @@ import com.github.steveice10.mc.protocol.data.game.world.block.BlockFace;
 import com.github.steveice10.mc.protocol.packet.ingame.client.player.ClientPlayerActionPacket;
 import com.github.steveice10.mc.protocol.packet.ingame.client.player.ClientPlayerUseItemPacket;
 import com.nukkitx.math.vector.Vector3f;
+import com.nukkitx.math.vector.Vector3i;
 import com.nukkitx.protocol.bedrock.data.AttributeData;
 import com.nukkitx.protocol.bedrock.data.entity.EntityData;
 import com.nukkitx.protocol.bedrock.data.entity.EntityDataMap;
@@ -42,6 +43,7 @@ import com.nukkitx.protocol.bedrock.data.entity.EntityFlag;
 import com.nukkitx.protocol.bedrock.data.entity.EntityFlags;
 import com.nukkitx.protocol.bedrock.packet.*;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import net.kyori.adventure.text.Component;
@@ -51,18 +53,24 @@ import org.geysermc.connector.entity.living.ArmorStandEntity;
 import org.geysermc.connector.entity.player.PlayerEntity;
 import org.geysermc.connector.entity.type.EntityType;
 import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.network.session.cache.EntityCache;
 import org.geysermc.connector.network.translators.item.ItemRegistry;
 import org.geysermc.connector.utils.AttributeUtils;
 import org.geysermc.connector.network.translators.chat.MessageTranslator;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 @Getter
 @Setter
 public class Entity {
+    private static final EntityFlag[] ENTITY_FLAGS = EntityFlag.values();
+    /**
+     * Estimated bytes not sent per entity type because unchanged metadata entries were left out
+     */
+    private static final Map<EntityType, LongAdder> METADATA_BYTES_SAVED = new ConcurrentHashMap<>();
+
     protected long entityId;
     protected long geyserId;
 
@@ -79,6 +87,20 @@ public class Entity {
      */
     protected boolean onGround;
 
+    /**
+     * The position, Bedrock rotation and ground state last sent to the client, so coalesced movement only
+     * has to include the fields that changed since then. Only used on the session's event loop.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Vector3f sentPosition;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Vector3f sentRotation;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean sentOnGround;
+
     protected float scale = 1;
 
     protected EntityType entityType;
@@ -89,6 +111,17 @@ public class Entity {
     protected Map<AttributeType, Attribute> attributes = new HashMap<>();
     protected EntityDataMap metadata = new EntityDataMap();
 
+    /**
+     * The metadata entries and flags last sent to the client, so only changed entries are sent again. Null if the
+     * client's metadata is unknown, in which case everything is sent. Only used on the session's event loop.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<EntityData, Object> sentMetadata;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private BitSet sentFlags;
+
     public Entity(long entityId, long geyserId, EntityType entityType, Vector3f position, Vector3f motion, Vector3f rotation) {
         this.entityId = entityId;
         this.geyserId = geyserId;
@@ -127,11 +160,34 @@ public class Entity {
         addEntityPacket.getMetadata().putAll(metadata);
 
         valid = true;
+        resetSentState(addEntityPacket.getPosition(), addEntityPacket.getRotation(), true);
         session.sendUpstreamPacket(addEntityPacket);
 
         session.getConnector().getLogger().debug("Spawned entity " + entityType + " at location " + position + " with id " + geyserId + " (java id " + entityId + ")");
     }
 
+    /**
+     * Remember what a spawn packet told the client, so later movement and metadata updates only send what changed
+     * since. Every way of spawning an entity has to call this, as the client starts over with a respawned entity.
+     *
+     * @param position the position in the spawn packet
+     * @param rotation the Bedrock rotation in the spawn packet
+     * @param withMetadata if the spawn packet contained the current metadata of this entity
+     */
+    protected void resetSentState(Vector3f position, Vector3f rotation, boolean withMetadata) {
+        sentPosition = position;
+        sentRotation = rotation;
+        sentOnGround = onGround;
+        if (withMetadata) {
+            sentMetadata = new EnumMap<>(EntityData.class);
+            sentFlags = new BitSet(ENTITY_FLAGS.length);
+            collectChangedMetadata();
+        } else {
+            sentMetadata = null;
+            sentFlags = null;
+        }
+    }
+
     /**
      * Despawns the entity
      *
@@ -153,6 +209,8 @@ public class Entity {
         session.sendUpstreamPacket(removeEntityPacket);
 
         valid = false;
+        sentMetadata = null;
+        sentFlags = null;
         return true;
     }
 
@@ -165,14 +223,7 @@ public class Entity {
         setOnGround(isOnGround);
         this.position = Vector3f.from(position.getX() + relX, position.getY() + relY, position.getZ() + relZ);
 
-        MoveEntityAbsolutePacket moveEntityPacket = new MoveEntityAbsolutePacket();
-        moveEntityPacket.setRuntimeEntityId(geyserId);
-        moveEntityPacket.setPosition(position);
-        moveEntityPacket.setRotation(getBedrockRotation());
-        moveEntityPacket.setOnGround(isOnGround);
-        moveEntityPacket.setTeleported(false);
-
-        session.sendUpstreamPacket(moveEntityPacket);
+        session.getEntityCache().markMovementDirty(this);
     }
 
     public void moveAbsolute(GeyserSession session, Vector3f position, float yaw, float pitch, boolean isOnGround, boolean teleported) {
@@ -184,13 +235,81 @@ public class Entity {
         setRotation(rotation);
         setOnGround(isOnGround);
 
+        if (teleported) {
+            // Teleports are not coalesced so the client never interpolates across them
+            sendAbsoluteMovement(session, true);
+        } else {
+            session.getEntityCache().markMovementDirty(this);
+        }
+    }
+
+    /**
+     * Sends the movement accumulated since the last flush as a single packet containing only the changed fields.
+     * Called once per tick by the {@link org.geysermc.connector.network.session.cache.EntityCache}.
+     *
+     * @param session GeyserSession.
+     */
+    public void flushMovement(GeyserSession session) {
+        if (sentPosition == null) {
+            // Spawned without going through spawnEntity, so there's nothing to compute a delta from
+            sendAbsoluteMovement(session, false);
+            return;
+        }
+
+        Vector3f position = this.position;
+        Vector3f rotation = getBedrockRotation();
+        boolean onGround = this.onGround;
+
+        MoveEntityDeltaPacket moveEntityPacket = new MoveEntityDeltaPacket();
+        moveEntityPacket.setRuntimeEntityId(geyserId);
+        if (position.getX() != sentPosition.getX()) {
+            moveEntityPacket.setX(position.getX());
+            moveEntityPacket.getFlags().add(MoveEntityDeltaPacket.Flag.HAS_X);
+        }
+        if (position.getY() != sentPosition.getY()) {
+            moveEntityPacket.setY(position.getY());
+            moveEntityPacket.getFlags().add(MoveEntityDeltaPacket.Flag.HAS_Y);
+        }
+        if (position.getZ() != sentPosition.getZ()) {
+            moveEntityPacket.setZ(position.getZ());
+            moveEntityPacket.getFlags().add(MoveEntityDeltaPacket.Flag.HAS_Z);
+        }
+        if (rotation.getX() != sentRotation.getX()) {
+            moveEntityPacket.setPitch(rotation.getX());
+            moveEntityPacket.getFlags().add(MoveEntityDeltaPacket.Flag.HAS_PITCH);
+        }
+        if (rotation.getY() != sentRotation.getY()) {
+            moveEntityPacket.setHeadYaw(rotation.getY());
+            moveEntityPacket.getFlags().add(MoveEntityDeltaPacket.Flag.HAS_HEAD_YAW);
+        }
+        if (rotation.getZ() != sentRotation.getZ()) {
+            moveEntityPacket.setYaw(rotation.getZ());
+            moveEntityPacket.getFlags().add(MoveEntityDeltaPacket.Flag.HAS_YAW);
+        }
+        if (moveEntityPacket.getFlags().isEmpty() && onGround == sentOnGround) {
+            return;
+        }
+        if (onGround) {
+            moveEntityPacket.getFlags().add(MoveEntityDeltaPacket.Flag.ON_GROUND);
+        }
+
+        sentPosition = position;
+        sentRotation = rotation;
+        sentOnGround = onGround;
+        session.sendUpstreamPacket(moveEntityPacket);
+    }
+
+    private void sendAbsoluteMovement(GeyserSession session, boolean teleported) {
         MoveEntityAbsolutePacket moveEntityPacket = new MoveEntityAbsolutePacket();
         moveEntityPacket.setRuntimeEntityId(geyserId);
         moveEntityPacket.setPosition(position);
         moveEntityPacket.setRotation(getBedrockRotation());
-        moveEntityPacket.setOnGround(isOnGround);
+        moveEntityPacket.setOnGround(onGround);
         moveEntityPacket.setTeleported(teleported);
 
+        sentPosition = moveEntityPacket.getPosition();
+        sentRotation = moveEntityPacket.getRotation();
+        sentOnGround = moveEntityPacket.isOnGround();
         session.sendUpstreamPacket(moveEntityPacket);
     }
 
@@ -203,7 +322,19 @@ public class Entity {
      * @param isOnGround Whether the entity is currently on the ground.
      */
     public void teleport(GeyserSession session, Vector3f position, float yaw, float pitch, boolean isOnGround) {
+        EntityCache entityCache = session.getEntityCache();
+        if (valid && entityCache.isMovementDirty(this)) {
+            // Send the movement still waiting for the next tick first, so the teleport isn't merged into it
+            flushMovement(session);
+        }
+
         moveAbsolute(session, position, yaw, pitch, isOnGround, false);
+
+        // Entities that don't send their own movement are sent right away rather than on the next tick. They stay
+        // marked as moved, so the next tick still checks if they entered or left the render distance.
+        if (valid && entityCache.isMovementDirty(this)) {
+            sendAbsoluteMovement(session, false);
+        }
     }
 
     /**
@@ -356,10 +487,93 @@ public class Entity {
 
         SetEntityDataPacket entityDataPacket = new SetEntityDataPacket();
         entityDataPacket.setRuntimeEntityId(geyserId);
-        entityDataPacket.getMetadata().putAll(metadata);
+        if (sentMetadata == null) {
+            // Spawned without going through spawnEntity, so we don't know what the client has
+            sentMetadata = new EnumMap<>(EntityData.class);
+            sentFlags = new BitSet(ENTITY_FLAGS.length);
+            collectChangedMetadata();
+            entityDataPacket.getMetadata().putAll(metadata);
+        } else {
+            entityDataPacket.getMetadata().putAll(collectChangedMetadata());
+            if (entityDataPacket.getMetadata().isEmpty()) {
+                return;
+            }
+        }
         session.sendUpstreamPacket(entityDataPacket);
     }
 
+    /**
+     * Compares the metadata with what was last sent to the client and marks it as sent.
+     *
+     * @return the entries that changed since the last update
+     */
+    private Map<EntityData, Object> collectChangedMetadata() {
+        Map<EntityData, Object> changed = new EnumMap<>(EntityData.class);
+        long bytesSaved = 0;
+        for (Map.Entry<EntityData, Object> entry : metadata.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof EntityFlags) {
+                EntityFlags flags = (EntityFlags) value;
+                boolean flagsChanged = false;
+                for (EntityFlag flag : ENTITY_FLAGS) {
+                    boolean set = flags.getFlag(flag);
+                    if (sentFlags.get(flag.ordinal()) != set) {
+                        sentFlags.set(flag.ordinal(), set);
+                        flagsChanged = true;
+                    }
+                }
+                if (flagsChanged) {
+                    changed.put(entry.getKey(), value);
+                } else {
+                    bytesSaved += 2 * Long.BYTES;
+                }
+            } else if (Objects.equals(sentMetadata.get(entry.getKey()), value)) {
+                bytesSaved += estimateSize(value);
+            } else {
+                sentMetadata.put(entry.getKey(), value);
+                changed.put(entry.getKey(), value);
+            }
+        }
+        if (bytesSaved > 0) {
+            METADATA_BYTES_SAVED.computeIfAbsent(entityType, type -> new LongAdder()).add(bytesSaved);
+        }
+        return changed;
+    }
+
+    /**
+     * @return roughly how many bytes a metadata entry with this value takes up on the wire, including its header
+     */
+    private static int estimateSize(Object value) {
+        int size = 2; // Key and type
+        if (value instanceof Byte) {
+            size += Byte.BYTES;
+        } else if (value instanceof Short) {
+            size += Short.BYTES;
+        } else if (value instanceof Integer || value instanceof Float) {
+            size += Integer.BYTES;
+        } else if (value instanceof Long) {
+            size += Long.BYTES;
+        } else if (value instanceof String) {
+            size += 1 + ((String) value).length();
+        } else if (value instanceof Vector3i || value instanceof Vector3f) {
+            size += 3 * Integer.BYTES;
+        } else {
+            size += Long.BYTES;
+        }
+        return size;
+    }
+
+    /**
+     * @return the estimated bytes saved per entity type by only sending changed metadata
+     */
+    public static Map<EntityType, Long> getMetadataBytesSaved() {
+        Map<EntityType, Long> bytesSaved = new EnumMap<>(EntityType.class);
+        for (Map.Entry<EntityType, LongAdder> entry : METADATA_BYTES_SAVED.entrySet()) {
+            bytesSaved.put(entry.getKey(), entry.getValue().sum());
+        }
+        return bytesSaved;
+    }
+
     /**
      * x = Pitch, y = HeadYaw, z = Yaw
      *
@@ -89,6 +89,7 @@ public class ItemFrameEntity extends Entity {
             session.getConnector().getLogger().debug("Spawned item frame at location " + bedrockPosition + " with java id " + entityId);
         }, 500, TimeUnit.MILLISECONDS);
         valid = true;
+        resetSentState(position, getBedrockRotation(), false);
     }
 
     @Override
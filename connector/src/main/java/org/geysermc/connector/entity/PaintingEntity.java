@@ -58,6 +58,7 @@ public class PaintingEntity extends Entity {
         session.sendUpstreamPacket(addPaintingPacket);
 
         valid = true;
+        resetSentState(position, getBedrockRotation(), false);
 
         session.getConnector().getLogger().debug("Spawned painting on " + position);
     }
@@ -49,14 +49,14 @@ public class TNTEntity extends Entity {
             currentTick = (int) entityMetadata.getValue();
             metadata.getFlags().setFlag(EntityFlag.IGNITED, true);
             metadata.put(EntityData.FUSE_LENGTH, currentTick);
-            ScheduledFuture<?> future = session.getConnector().getGeneralThreadPool().scheduleAtFixedRate(() -> {
+            ScheduledFuture<?> future = session.getEventLoop().scheduleAtFixedRate(() -> {
                 if (currentTick % 5 == 0) {
                     metadata.put(EntityData.FUSE_LENGTH, currentTick);
                 }
                 currentTick--;
                 super.updateBedrockMetadata(entityMetadata, session);
             }, 50, 50, TimeUnit.MILLISECONDS); // 5 ticks
-            session.getConnector().getGeneralThreadPool().schedule(() -> future.cancel(true), (int) entityMetadata.getValue() / 20, TimeUnit.SECONDS);
+            session.getEventLoop().schedule(() -> future.cancel(true), (int) entityMetadata.getValue() / 20, TimeUnit.SECONDS);
         }
 
         super.updateBedrockMetadata(entityMetadata, session);
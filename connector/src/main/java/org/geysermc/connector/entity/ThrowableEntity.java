@@ -57,7 +57,8 @@ public class ThrowableEntity extends Entity {
     @Override
     public void spawnEntity(GeyserSession session) {
         super.spawnEntity(session);
-        positionUpdater = session.getConnector().getGeneralThreadPool().scheduleAtFixedRate(() -> {
+        // On the session's event loop, where the rest of the movement of this entity is sent from
+        positionUpdater = session.getEventLoop().scheduleAtFixedRate(() -> {
             if (session.isClosed()) {
                 positionUpdater.cancel(true);
                 return;
@@ -61,7 +61,7 @@ public class StriderEntity extends AnimalEntity {
         // Needs to copy the parent state
         if (metadata.getFlags().getFlag(EntityFlag.RIDING)) {
             boolean parentShaking = false;
-            for (Entity ent : session.getEntityCache().getEntities().values()) {
+            for (Entity ent : session.getEntityCache().getEntities()) {
                 if (ent.getPassengers().contains(entityId) && ent instanceof StriderEntity) {
                     parentShaking = ent.getMetadata().getFlags().getFlag(EntityFlag.SHAKING);
                     break;
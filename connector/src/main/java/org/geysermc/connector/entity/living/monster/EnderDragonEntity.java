@@ -106,6 +106,7 @@ public class EnderDragonEntity extends InsentientEntity {
         addEntityPacket.getAttributes().add(new AttributeData("minecraft:health", 0.0f, 200f, 200f, 200f));
 
         valid = true;
+        resetSentState(addEntityPacket.getPosition(), addEntityPacket.getRotation(), true);
         session.sendUpstreamPacket(addEntityPacket);
 
         head = new EnderDragonPartEntity(entityId + 1, session.getEntityCache().getNextEntityId().incrementAndGet(), EntityType.ENDER_DRAGON_PART, position, motion, rotation, 1, 1);
@@ -130,7 +131,12 @@ public class EnderDragonEntity extends InsentientEntity {
             segmentHistory[i].y = position.getY();
         }
 
-        partPositionUpdater = session.getConnector().getGeneralThreadPool().scheduleAtFixedRate(() -> {
+        // On the session's event loop, where the rest of the movement of this entity is sent from
+        partPositionUpdater = session.getEventLoop().scheduleAtFixedRate(() -> {
+            if (session.isClosed()) {
+                partPositionUpdater.cancel(true);
+                return;
+            }
             pushSegment();
             updateBoundingBoxes(session);
         }, 0, 50, TimeUnit.MILLISECONDS);
@@ -107,6 +107,7 @@ public class PlayerEntity extends LivingEntity {
         }
 
         valid = true;
+        resetSentState(position, addPlayerPacket.getRotation(), true);
         session.sendUpstreamPacket(addPlayerPacket);
 
         updateEquipment(session);
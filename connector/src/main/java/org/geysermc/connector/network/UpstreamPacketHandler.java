@@ -36,23 +36,32 @@ import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.PacketTranslatorRegistry;
 import org.geysermc.connector.utils.LanguageUtils;
 import org.geysermc.connector.utils.LoginEncryptionUtils;
-import org.geysermc.connector.utils.MathUtils;
 import org.geysermc.connector.utils.ResourcePack;
 import org.geysermc.connector.utils.ResourcePackManifest;
 import org.geysermc.connector.utils.SettingsUtils;
 import org.geysermc.connector.utils.StatisticsUtils;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
 
 public class UpstreamPacketHandler extends LoggingPacketHandler {
 
+    /**
+     * When the next resource pack chunk may be sent to this client, to keep it to the transfer rate
+     */
+    private long nextPackChunkTime;
+
     public UpstreamPacketHandler(GeyserConnector connector, GeyserSession session) {
         super(connector, session);
     }
 
     private boolean translateAndDefault(BedrockPacket packet) {
-        return PacketTranslatorRegistry.BEDROCK_TRANSLATOR.translate(packet.getClass(), packet, session);
+        // Translated on the session's own loop, in order with its Java packets and tick tasks
+        session.getEventLoop().execute(() -> {
+            if (!session.isClosed()) {
+                PacketTranslatorRegistry.BEDROCK_TRANSLATOR.translate(packet.getClass(), packet, session);
+            }
+        });
+        return true;
     }
 
     @Override
@@ -73,21 +82,26 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
 
         session.getUpstream().getSession().setPacketCodec(packetCodec);
 
-        LoginEncryptionUtils.encryptPlayerConnection(connector, session, loginPacket);
+        // Verifying the login runs on the login crypto pool; the rest of the login continues on the network loop once it's done
+        LoginEncryptionUtils.encryptPlayerConnection(connector, session, loginPacket).thenAccept(success -> {
+            if (!success) {
+                return;
+            }
 
-        PlayStatusPacket playStatus = new PlayStatusPacket();
-        playStatus.setStatus(PlayStatusPacket.Status.LOGIN_SUCCESS);
-        session.sendUpstreamPacket(playStatus);
+            PlayStatusPacket playStatus = new PlayStatusPacket();
+            playStatus.setStatus(PlayStatusPacket.Status.LOGIN_SUCCESS);
+            session.sendUpstreamPacket(playStatus);
 
-        ResourcePacksInfoPacket resourcePacksInfo = new ResourcePacksInfoPacket();
-        for(ResourcePack resourcePack : ResourcePack.PACKS.values()) {
-            ResourcePackManifest.Header header = resourcePack.getManifest().getHeader();
-            resourcePacksInfo.getResourcePackInfos().add(new ResourcePacksInfoPacket.Entry(
-                    header.getUuid().toString(), header.getVersionString(), resourcePack.getFile().length(),
-                            "", "", "", false, false));
-        }
-        resourcePacksInfo.setForcedToAccept(GeyserConnector.getInstance().getConfig().isForceResourcePacks());
-        session.sendUpstreamPacket(resourcePacksInfo);
+            ResourcePacksInfoPacket resourcePacksInfo = new ResourcePacksInfoPacket();
+            for(ResourcePack resourcePack : ResourcePack.PACKS.values()) {
+                ResourcePackManifest.Header header = resourcePack.getManifest().getHeader();
+                resourcePacksInfo.getResourcePackInfos().add(new ResourcePacksInfoPacket.Entry(
+                        header.getUuid().toString(), header.getVersionString(), resourcePack.getLength(),
+                                "", "", "", false, false));
+            }
+            resourcePacksInfo.setForcedToAccept(GeyserConnector.getInstance().getConfig().isForceResourcePacks());
+            session.sendUpstreamPacket(resourcePacksInfo);
+        });
         return true;
     }
 
@@ -107,9 +121,8 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
                     ResourcePackManifest.Header header = pack.getManifest().getHeader();
 
                     data.setPackId(header.getUuid());
-                    int chunkCount = (int) Math.ceil((int) pack.getFile().length() / (double) ResourcePack.CHUNK_SIZE);
-                    data.setChunkCount(chunkCount);
-                    data.setCompressedPackSize(pack.getFile().length());
+                    data.setChunkCount(pack.getChunkCount());
+                    data.setCompressedPackSize(pack.getLength());
                     data.setMaxChunkSize(ResourcePack.CHUNK_SIZE);
                     data.setHash(pack.getSha256());
                     data.setPackVersion(packID[1]);
@@ -216,19 +229,15 @@ public class UpstreamPacketHandler extends LoggingPacketHandler {
         data.setPackVersion(packet.getPackVersion());
         data.setPackId(packet.getPackId());
 
-        int offset = packet.getChunkIndex() * ResourcePack.CHUNK_SIZE;
-        byte[] packData = new byte[(int) MathUtils.constrain(pack.getFile().length() - offset, 0, ResourcePack.CHUNK_SIZE)];
-
-        try (InputStream inputStream = new FileInputStream(pack.getFile())) {
-            inputStream.skip(offset);
-            inputStream.read(packData, 0, packData.length);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
+        byte[] packData = pack.getChunk(packet.getChunkIndex());
         data.setData(packData);
 
-        session.sendUpstreamPacket(data);
+        // Pace chunks so one client can't take all of the bandwidth while others are joining. Every chunk goes through
+        // the session's own loop, where the send times only ever increase, so the chunks are sent in order.
+        long now = System.nanoTime();
+        long sendTime = Math.max(now, nextPackChunkTime);
+        nextPackChunkTime = sendTime + packData.length * TimeUnit.SECONDS.toNanos(1) / ResourcePack.TRANSFER_RATE_PER_CLIENT;
+        session.getEventLoop().schedule(() -> session.sendUpstreamPacket(data), sendTime - now, TimeUnit.NANOSECONDS);
         return true;
     }
 }
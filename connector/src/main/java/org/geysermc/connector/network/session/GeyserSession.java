@@ -44,6 +44,7 @@ import com.github.steveice10.packetlib.Client;
 import com.github.steveice10.packetlib.event.session.*;
 import com.github.steveice10.packetlib.packet.Packet;
 import com.github.steveice10.packetlib.tcp.TcpSessionFactory;
+import com.google.common.cache.Cache;
 import com.nukkitx.math.GenericMath;
 import com.nukkitx.math.vector.*;
 import com.nukkitx.protocol.bedrock.BedrockPacket;
@@ -51,6 +52,7 @@ import com.nukkitx.protocol.bedrock.BedrockServerSession;
 import com.nukkitx.protocol.bedrock.data.*;
 import com.nukkitx.protocol.bedrock.data.command.CommandPermission;
 import com.nukkitx.protocol.bedrock.packet.*;
+import io.netty.channel.EventLoop;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
@@ -82,6 +84,9 @@ import org.geysermc.connector.network.translators.chat.MessageTranslator;
 import org.geysermc.connector.network.translators.collision.CollisionManager;
 import org.geysermc.connector.network.translators.inventory.EnchantmentInventoryTranslator;
 import org.geysermc.connector.network.translators.item.ItemRegistry;
+import org.geysermc.connector.network.translators.world.chunk.ChunkBlobCache;
+import org.geysermc.connector.network.translators.world.chunk.ChunkTranslationQueue;
+import org.geysermc.connector.scheduler.TickTask;
 import org.geysermc.connector.skin.SkinManager;
 import org.geysermc.connector.utils.*;
 import org.geysermc.floodgate.util.BedrockData;
@@ -102,6 +107,12 @@ public class GeyserSession implements CommandSender {
 
     private final GeyserConnector connector;
     private final UpstreamSession upstream;
+    /**
+     * The event loop of this session, taken from {@link GeyserConnector#getSessionEventLoopGroup()}. Packets from both
+     * the client and the Java server are translated on it, as is the tick work of this session, so the state of the
+     * session is only changed by one thread at a time without it sharing a thread with every other session.
+     */
+    private final EventLoop eventLoop;
     private RemoteServer remoteServer;
     private Client downstream;
     @Setter
@@ -113,6 +124,7 @@ public class GeyserSession implements CommandSender {
     private PlayerInventory inventory;
 
     private ChunkCache chunkCache;
+    private final ChunkTranslationQueue chunkTranslationQueue;
     private EntityCache entityCache;
     private EntityEffectCache effectCache;
     private InventoryCache inventoryCache;
@@ -136,6 +148,18 @@ public class GeyserSession implements CommandSender {
 
     @Setter
     private Vector2i lastChunkPosition = null;
+
+    /**
+     * If the client supports the blob cache, so chunk sections can be sent as hashes of their contents
+     */
+    @Setter
+    private boolean clientCacheEnabled = false;
+    /**
+     * Blobs that have been sent to the client but not yet acknowledged or requested by it, by blob id. They are kept
+     * here so that they can still be served if they are evicted from the shared blob cache first, up to a size and
+     * age limit.
+     */
+    private final Cache<Long, byte[]> pendingBlobs = ChunkBlobCache.createPendingBlobs();
     private int renderDistance;
 
     private boolean loggedIn;
@@ -143,7 +167,7 @@ public class GeyserSession implements CommandSender {
 
     @Setter
     private boolean spawned;
-    private boolean closed;
+    private volatile boolean closed;
 
     @Setter
     private GameMode gameMode = GameMode.SURVIVAL;
@@ -246,10 +270,17 @@ public class GeyserSession implements CommandSender {
     private ScheduledFuture<?> bucketScheduledFuture;
 
     /**
-     * Sends a movement packet every three seconds if the player hasn't moved. Prevents timeouts when AFK in certain instances.
+     * The last time the player moved, or 0 to stop sending idle movement until the player moves again.
+     * A movement packet is sent every three seconds if the player hasn't moved. Prevents timeouts when AFK in certain instances.
      */
     @Setter
-    private ScheduledFuture<?> movementSendIfIdle;
+    private volatile long lastMovementTime = 0;
+
+    /**
+     * Checks every second if the player has been idle for long enough to send a movement packet
+     */
+    @Setter
+    private TickTask idleMovementTask;
 
     /**
      * Controls whether the daylight cycle gamerule has been sent to the client, so the sun/moon remain motionless.
@@ -334,8 +365,10 @@ public class GeyserSession implements CommandSender {
     public GeyserSession(GeyserConnector connector, BedrockServerSession bedrockServerSession) {
         this.connector = connector;
         this.upstream = new UpstreamSession(bedrockServerSession);
+        this.eventLoop = connector.getSessionEventLoopGroup().next();
 
         this.chunkCache = new ChunkCache(this);
+        this.chunkTranslationQueue = new ChunkTranslationQueue(this);
         this.entityCache = new EntityCache(this);
         this.effectCache = new EntityEffectCache();
         this.inventoryCache = new InventoryCache(this);
@@ -536,6 +569,11 @@ public class GeyserSession implements CommandSender {
 
                     @Override
                     public void packetReceived(PacketReceivedEvent event) {
+                        // Translated on the session's own loop, with the Bedrock packets and the tick tasks of this session
+                        eventLoop.execute(() -> handleDownstreamPacket(event));
+                    }
+
+                    private void handleDownstreamPacket(PacketReceivedEvent event) {
                         if (!closed) {
                             //handle consecutive respawn packets
                             if (event.getPacket().getClass().equals(ServerRespawnPacket.class)) {
@@ -594,15 +632,19 @@ public class GeyserSession implements CommandSender {
                 upstream.disconnect(reason);
             }
         }
+        // Set before the caches are torn down, so tasks that are still queued for this session don't run
+        closed = true;
 
+        if (this.chunkCache != null) {
+            this.chunkCache.close();
+        }
         this.chunkCache = null;
+        this.chunkTranslationQueue.clear();
         this.entityCache = null;
         this.effectCache = null;
         this.worldCache = null;
         this.inventoryCache = null;
         this.windowCache = null;
-
-        closed = true;
     }
 
     public void close() {
@@ -658,6 +700,13 @@ public class GeyserSession implements CommandSender {
         ChunkRadiusUpdatedPacket chunkRadiusUpdatedPacket = new ChunkRadiusUpdatedPacket();
         chunkRadiusUpdatedPacket.setRadius(renderDistance);
         upstream.sendPacket(chunkRadiusUpdatedPacket);
+
+        if (chunkCache != null) {
+            chunkCache.pruneOutsideRenderDistance();
+        }
+        if (entityCache != null) {
+            entityCache.updateInterest();
+        }
     }
 
     public InetSocketAddress getSocketAddress() {
@@ -25,55 +25,194 @@
 
 package org.geysermc.connector.network.session.cache;
 
-import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
 import com.github.steveice10.mc.protocol.data.game.chunk.Column;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import org.geysermc.connector.bootstrap.GeyserBootstrap;
 import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.network.translators.world.WorldManager;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
+import org.geysermc.connector.network.translators.world.chunk.CachedColumn;
 import org.geysermc.connector.utils.MathUtils;
 
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Stores the columns sent by the Java server.
+ *
+ * The cache is written to by the downstream thread, while chunk translation workers, the Bedrock thread and the
+ * memory limit enforcement of other sessions read from it. Columns are spread over several maps, each guarded by its
+ * own lock, so lookups rarely wait on a write; blocks are then read from the column without locking.
+ */
 public class ChunkCache {
+    /**
+     * The approximate amount of memory used by the chunk caches of all sessions
+     */
+    private static final AtomicLong TOTAL_MEMORY_USAGE = new AtomicLong();
+    /**
+     * The amount of columns cached by all sessions
+     */
+    private static final AtomicInteger TOTAL_COLUMNS = new AtomicInteger();
+    /**
+     * Columns removed because they were outside of the view distance of their player
+     */
+    private static final LongAdder RADIUS_EVICTIONS = new LongAdder();
+    /**
+     * Columns removed to stay within the memory limit
+     */
+    private static final LongAdder BUDGET_EVICTIONS = new LongAdder();
+    /**
+     * Chunks that weren't cached because the memory limit was reached
+     */
+    private static final LongAdder REFUSED_COLUMNS = new LongAdder();
+
+    /**
+     * Every cache that is currently storing columns, so the memory limit can be enforced across sessions
+     */
+    private static final Set<ChunkCache> CACHES = ConcurrentHashMap.newKeySet();
+    /**
+     * Only one thread needs to enforce the memory limit at a time
+     */
+    private static final ReentrantLock EVICTION_LOCK = new ReentrantLock();
+
+    /**
+     * Distances past this are all considered equally far away when enforcing the memory limit
+     */
+    private static final int MAX_EVICTION_DISTANCE = 255;
+
+    /**
+     * The amount of maps columns are spread over. Must be a power of two.
+     */
+    private static final int STRIPES = 16;
+
+    private final GeyserSession session;
 
     private final boolean cache;
 
-    private final Long2ObjectMap<Column> chunks = new Long2ObjectOpenHashMap<>();
+    /**
+     * The maximum amount of memory that the chunk caches of all sessions may use, or 0 if there is no limit
+     */
+    private final long memoryLimit;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * The approximate amount of memory used by this cache
+     */
+    private final AtomicLong memoryUsage = new AtomicLong();
+
+    /**
+     * The chunk the player is in, which determines which columns are evicted first
+     */
+    private volatile boolean hasCenter = false;
+    private volatile int centerX;
+    private volatile int centerZ;
 
     public ChunkCache(GeyserSession session) {
+        this.session = session;
         if (session.getConnector().getWorldManager().getClass() == GeyserBootstrap.DEFAULT_CHUNK_MANAGER.getClass()) {
             this.cache = session.getConnector().getConfig().isCacheChunks();
         } else {
             this.cache = false; // To prevent Spigot from initializing
         }
+        this.memoryLimit = session.getConnector().getConfig().getChunkCacheMemoryLimit() * 1024L * 1024L;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        if (cache) {
+            CACHES.add(this);
+        }
     }
 
-    public Column addToCache(Column chunk) {
+    /**
+     * Add a column to the cache, merging it with the cached column if it isn't a full chunk. A non-full chunk of a
+     * column that isn't cached starts the column with the sections it contains.
+     *
+     * Columns aren't cached if that would go over the memory limit, as columns the player can see are never
+     * evicted. Such a column stays uncached, like it would be with chunk caching off, until there is room again;
+     * its chunks are still translated straight from the packets in the meantime.
+     *
+     * @param chunk the column received from the server
+     * @return false if the column was a non-full chunk that did not contain any sections
+     */
+    public boolean addToCache(Column chunk) {
         if (!cache) {
-            return chunk;
+            return true;
         }
 
         long chunkPosition = MathUtils.chunkPositionToLong(chunk.getX(), chunk.getZ());
-        Column existingChunk;
-        if (chunk.getBiomeData() == null // Only consider merging columns if the new chunk isn't a full chunk
-            && (existingChunk = chunks.getOrDefault(chunkPosition, null)) != null) { // Column is already present in cache, we can merge with existing
-            boolean changed = false;
-            for (int i = 0; i < chunk.getChunks().length; i++) { // The chunks member is final, so chunk.getChunks() will probably be inlined and then completely optimized away
-                if (chunk.getChunks()[i] != null) {
-                    existingChunk.getChunks()[i] = chunk.getChunks()[i];
-                    changed = true;
-                }
+        boolean fullChunk = chunk.getBiomeData() != null;
+        // Columns that replace or start a cached column can be converted before taking the lock
+        CachedColumn column = fullChunk || getChunk(chunk.getX(), chunk.getZ()) == null ? new CachedColumn(chunk) : null;
+        if (column != null && !hasRoomFor(column.getMemoryUsage())) {
+            if (fullChunk) {
+                // The previously cached version of this column is outdated now
+                removeChunk(chunk.getX(), chunk.getZ());
             }
-            return changed ? existingChunk : null;
-        } else {
-            chunks.put(chunkPosition, chunk);
-            return chunk;
+            REFUSED_COLUMNS.increment();
+            return true;
+        }
+
+        Stripe stripe = stripeOf(chunkPosition);
+        long stamp = stripe.lock.writeLock();
+        try {
+            CachedColumn existingChunk = stripe.chunks.get(chunkPosition);
+            if (!fullChunk && existingChunk != null) {
+                // Column is already present in cache and the new chunk isn't a full chunk, we can merge with existing
+                long previousUsage = existingChunk.getMemoryUsage();
+                boolean changed = existingChunk.merge(chunk);
+                addMemoryUsage(existingChunk.getMemoryUsage() - previousUsage);
+                return changed;
+            }
+            if (column == null) {
+                // The column was removed in the meantime, so this chunk is translated on its own
+                return true;
+            }
+
+            CachedColumn previous = stripe.chunks.put(chunkPosition, column);
+            if (previous != null) {
+                addMemoryUsage(column.getMemoryUsage() - previous.getMemoryUsage());
+            } else {
+                TOTAL_COLUMNS.incrementAndGet();
+                addMemoryUsage(column.getMemoryUsage());
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+        return true;
+    }
+
+    /**
+     * Check if a new column fits within the memory limit, first evicting columns the players can't see if needed
+     *
+     * @param usage the memory usage of the new column
+     * @return true if the column can be cached
+     */
+    private boolean hasRoomFor(long usage) {
+        if (memoryLimit <= 0 || TOTAL_MEMORY_USAGE.get() + usage <= memoryLimit) {
+            return true;
         }
+        evictOverLimit(memoryLimit);
+        return TOTAL_MEMORY_USAGE.get() + usage <= memoryLimit;
     }
 
-    public Column getChunk(int chunkX, int chunkZ)  {
+    public CachedColumn getChunk(int chunkX, int chunkZ)  {
         long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
-        return chunks.getOrDefault(chunkPosition, null);
+        Stripe stripe = stripeOf(chunkPosition);
+        long stamp = stripe.lock.readLock();
+        try {
+            return stripe.chunks.get(chunkPosition);
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
     }
 
     public void updateBlock(int x, int y, int z, int block) {
@@ -81,14 +220,17 @@ public class ChunkCache {
             return;
         }
 
-        Column column = this.getChunk(x >> 4, z >> 4);
-        if (column == null) {
-            return;
-        }
-
-        Chunk chunk = column.getChunks()[y >> 4];
-        if (chunk != null) {
-            chunk.set(x & 0xF, y & 0xF, z & 0xF, block);
+        long chunkPosition = MathUtils.chunkPositionToLong(x >> 4, z >> 4);
+        Stripe stripe = stripeOf(chunkPosition);
+        // Removing a column needs the write lock, so the column can't be evicted while its memory usage changes
+        long stamp = stripe.lock.readLock();
+        try {
+            CachedColumn column = stripe.chunks.get(chunkPosition);
+            if (column != null) {
+                addMemoryUsage(column.setBlockState(x & 0xF, y, z & 0xF, block));
+            }
+        } finally {
+            stripe.lock.unlockRead(stamp);
         }
     }
 
@@ -97,17 +239,45 @@ public class ChunkCache {
             return BlockTranslator.JAVA_AIR_ID;
         }
 
-        Column column = this.getChunk(x >> 4, z >> 4);
+        CachedColumn column = this.getChunk(x >> 4, z >> 4);
         if (column == null) {
             return BlockTranslator.JAVA_AIR_ID;
         }
 
-        Chunk chunk = column.getChunks()[y >> 4];
-        if (chunk != null) {
-            return chunk.get(x & 0xF, y & 0xF, z & 0xF);
+        return column.getBlockState(x & 0xF, y, z & 0xF);
+    }
+
+    /**
+     * Get the block states of a region, looking up each column only once.
+     *
+     * @see WorldManager#getBlocksInRegion
+     */
+    public void getBlocksInRegion(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] blocks) {
+        if (!cache) {
+            Arrays.fill(blocks, 0, sizeX * sizeY * sizeZ, BlockTranslator.JAVA_AIR_ID);
+            return;
         }
 
-        return BlockTranslator.JAVA_AIR_ID;
+        int maxX = minX + sizeX - 1;
+        int maxZ = minZ + sizeZ - 1;
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                CachedColumn column = getChunk(chunkX, chunkZ);
+                // The part of the region inside of this column
+                int startX = Math.max(minX, chunkX << 4);
+                int endX = Math.min(maxX, (chunkX << 4) + 15);
+                int startZ = Math.max(minZ, chunkZ << 4);
+                int endZ = Math.min(maxZ, (chunkZ << 4) + 15);
+                for (int y = 0; y < sizeY; y++) {
+                    for (int z = startZ; z <= endZ; z++) {
+                        for (int x = startX; x <= endX; x++) {
+                            int blockState = column == null ? BlockTranslator.JAVA_AIR_ID : column.getBlockState(x & 0xF, minY + y, z & 0xF);
+                            blocks[WorldManager.getRegionIndex(x - minX, y, z - minZ, sizeX, sizeZ)] = blockState;
+                        }
+                    }
+                }
+            }
+        }
     }
 
     public void removeChunk(int chunkX, int chunkZ) {
@@ -116,6 +286,260 @@ public class ChunkCache {
         }
 
         long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
-        chunks.remove(chunkPosition);
+        Stripe stripe = stripeOf(chunkPosition);
+        long stamp = stripe.lock.writeLock();
+        try {
+            CachedColumn column = stripe.chunks.remove(chunkPosition);
+            if (column != null) {
+                TOTAL_COLUMNS.decrementAndGet();
+                addMemoryUsage(-column.getMemoryUsage());
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Move the center of this cache to the chunk the player is now in, removing every column that is now outside of
+     * the render distance. The Java server doesn't always unload these, for example after a teleport.
+     *
+     * @param chunkX the X coordinate of the chunk the player is in
+     * @param chunkZ the Z coordinate of the chunk the player is in
+     */
+    public void updateCenter(int chunkX, int chunkZ) {
+        this.centerX = chunkX;
+        this.centerZ = chunkZ;
+        this.hasCenter = true;
+        pruneOutsideRenderDistance();
+    }
+
+    /**
+     * Remove every column that is further away from the player than the render distance
+     */
+    public void pruneOutsideRenderDistance() {
+        if (!cache || !hasCenter) {
+            return;
+        }
+
+        int radius = session.getRenderDistance();
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.writeLock();
+            try {
+                ObjectIterator<Long2ObjectMap.Entry<CachedColumn>> iterator = stripe.chunks.long2ObjectEntrySet().iterator();
+                while (iterator.hasNext()) {
+                    CachedColumn column = iterator.next().getValue();
+                    if (distanceTo(column) > radius) {
+                        iterator.remove();
+                        TOTAL_COLUMNS.decrementAndGet();
+                        addMemoryUsage(-column.getMemoryUsage());
+                        RADIUS_EVICTIONS.increment();
+                    }
+                }
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Remove every cached column, releasing their memory from the global total
+     */
+    public void clear() {
+        hasCenter = false;
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.writeLock();
+            try {
+                for (CachedColumn column : stripe.chunks.values()) {
+                    addMemoryUsage(-column.getMemoryUsage());
+                }
+                TOTAL_COLUMNS.addAndGet(-stripe.chunks.size());
+                stripe.chunks.clear();
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Clear this cache and stop taking it into account for the memory limit, once the session has disconnected
+     */
+    public void close() {
+        CACHES.remove(this);
+        clear();
+    }
+
+    /**
+     * @return the amount of columns in this cache
+     */
+    public int getColumnCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                count += stripe.chunks.size();
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the approximate amount of memory used by this cache
+     */
+    public long getMemoryUsage() {
+        return memoryUsage.get();
+    }
+
+    private Stripe stripeOf(long chunkPosition) {
+        // Neighbouring columns should end up in different stripes
+        long hash = chunkPosition * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (hash >>> 32) & (STRIPES - 1)];
+    }
+
+    private void addMemoryUsage(long delta) {
+        memoryUsage.addAndGet(delta);
+        TOTAL_MEMORY_USAGE.addAndGet(delta);
+    }
+
+    /**
+     * @return the distance, in chunks, between the player and the given column
+     */
+    private int distanceTo(CachedColumn column) {
+        if (!hasCenter) {
+            return 0;
+        }
+        return Math.max(Math.abs(column.getX() - centerX), Math.abs(column.getZ() - centerZ));
+    }
+
+    /**
+     * @return true if a column at the given distance from the player is no longer loaded by the client
+     */
+    private boolean isEvictable(int distance) {
+        return hasCenter && distance > session.getRenderDistance();
+    }
+
+    /**
+     * Evict columns from the caches of all sessions, farthest from their player first, until the total memory usage
+     * is back to 90% of the limit so this doesn't run again for every new column. Columns within the render distance
+     * of their player are still loaded by the client and are never evicted, so this may free less than that.
+     *
+     * @param memoryLimit the maximum amount of memory all caches can use
+     */
+    private static void evictOverLimit(long memoryLimit) {
+        if (!EVICTION_LOCK.tryLock()) {
+            // Another session is already freeing memory
+            return;
+        }
+
+        try {
+            long toFree = TOTAL_MEMORY_USAGE.get() - (memoryLimit / 10 * 9);
+            if (toFree <= 0) {
+                return;
+            }
+
+            // Find how far away the columns we need to evict are, across every session
+            long[] memoryByDistance = new long[MAX_EVICTION_DISTANCE + 1];
+            for (ChunkCache cache : CACHES) {
+                for (Stripe stripe : cache.stripes) {
+                    long stamp = stripe.lock.readLock();
+                    try {
+                        for (CachedColumn column : stripe.chunks.values()) {
+                            int distance = cache.distanceTo(column);
+                            if (cache.isEvictable(distance)) {
+                                memoryByDistance[Math.min(distance, MAX_EVICTION_DISTANCE)] += column.getMemoryUsage();
+                            }
+                        }
+                    } finally {
+                        stripe.lock.unlockRead(stamp);
+                    }
+                }
+            }
+
+            int threshold = MAX_EVICTION_DISTANCE;
+            long freedPastThreshold = 0;
+            while (threshold > 0 && freedPastThreshold + memoryByDistance[threshold] < toFree) {
+                freedPastThreshold += memoryByDistance[threshold];
+                threshold--;
+            }
+
+            // Evict everything past the threshold, and only as much as needed at the threshold itself
+            long toFreeAtThreshold = toFree - freedPastThreshold;
+            for (ChunkCache cache : CACHES) {
+                for (Stripe stripe : cache.stripes) {
+                    long stamp = stripe.lock.writeLock();
+                    try {
+                        ObjectIterator<Long2ObjectMap.Entry<CachedColumn>> iterator = stripe.chunks.long2ObjectEntrySet().iterator();
+                        while (iterator.hasNext()) {
+                            CachedColumn column = iterator.next().getValue();
+                            int distance = cache.distanceTo(column);
+                            if (!cache.isEvictable(distance)) {
+                                continue;
+                            }
+                            distance = Math.min(distance, MAX_EVICTION_DISTANCE);
+                            if (distance < threshold || (distance == threshold && toFreeAtThreshold <= 0)) {
+                                continue;
+                            }
+
+                            long usage = column.getMemoryUsage();
+                            iterator.remove();
+                            TOTAL_COLUMNS.decrementAndGet();
+                            cache.addMemoryUsage(-usage);
+                            BUDGET_EVICTIONS.increment();
+                            if (distance == threshold) {
+                                toFreeAtThreshold -= usage;
+                            }
+                        }
+                    } finally {
+                        stripe.lock.unlockWrite(stamp);
+                    }
+                }
+            }
+        } finally {
+            EVICTION_LOCK.unlock();
+        }
+    }
+
+    /**
+     * @return the approximate amount of memory used by the chunk caches of all sessions
+     */
+    public static long getTotalMemoryUsage() {
+        return TOTAL_MEMORY_USAGE.get();
+    }
+
+    /**
+     * @return the amount of columns cached by all sessions
+     */
+    public static int getTotalColumnCount() {
+        return TOTAL_COLUMNS.get();
+    }
+
+    /**
+     * @return the amount of columns removed because they were outside of the render distance of their player
+     */
+    public static long getRadiusEvictions() {
+        return RADIUS_EVICTIONS.sum();
+    }
+
+    /**
+     * @return the amount of columns removed to stay within the chunk cache memory limit
+     */
+    public static long getBudgetEvictions() {
+        return BUDGET_EVICTIONS.sum();
+    }
+
+    /**
+     * @return the amount of chunks that weren't cached because the memory limit was reached
+     */
+    public static long getRefusedColumns() {
+        return REFUSED_COLUMNS.sum();
+    }
+
+    /**
+     * A part of the columns of a cache, with the lock guarding them
+     */
+    private static class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final Long2ObjectMap<CachedColumn> chunks = new Long2ObjectOpenHashMap<>();
     }
 }
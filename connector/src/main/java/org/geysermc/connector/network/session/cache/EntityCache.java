@@ -25,97 +25,322 @@
 
 package org.geysermc.connector.network.session.cache;
 
+import com.nukkitx.math.vector.Vector2i;
+import com.nukkitx.protocol.bedrock.data.entity.EntityFlag;
 import it.unimi.dsi.fastutil.longs.*;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import lombok.Getter;
 import org.geysermc.connector.entity.Entity;
+import org.geysermc.connector.entity.ItemFrameEntity;
+import org.geysermc.connector.entity.LivingEntity;
+import org.geysermc.connector.entity.PaintingEntity;
+import org.geysermc.connector.entity.ThrowableEntity;
+import org.geysermc.connector.entity.living.monster.EnderDragonEntity;
 import org.geysermc.connector.entity.player.PlayerEntity;
 import org.geysermc.connector.network.session.GeyserSession;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Each session has its own EntityCache in the occasion that an entity packet is sent specifically
  * for that player (e.g. seeing vanished players from /vanish)
+ *
+ * Entities are only added, removed, spawned, despawned and culled on the session's own event loop
+ * ({@link GeyserSession#getEventLoop()}), which Java and Bedrock packet translation and the per-tick movement flush
+ * all run on. A culled entity therefore can't be spawned for its interest and removed by the server at the same time.
+ * <p>
+ * As the event loop is the only thread that changes the cache, lookups made on it read the maps directly without
+ * locking. Only writes, and lookups from other threads (such as chunk translation), take the lock.
  */
 public class EntityCache {
     private GeyserSession session;
 
-    @Getter
-    private Long2ObjectMap<Entity> entities = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
-    private Long2LongMap entityIdTranslations = Long2LongMaps.synchronize(new Long2LongOpenHashMap());
-    private Map<UUID, PlayerEntity> playerEntities = Collections.synchronizedMap(new HashMap<>());
+    private final StampedLock lock = new StampedLock();
+    private final Long2ObjectMap<Entity> entitiesByGeyserId = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<Entity> entitiesByJavaId = new Long2ObjectOpenHashMap<>();
+    /**
+     * Entities indexed by their exact class, for {@link #getEntitiesByType(Class)}
+     */
+    private final Map<Class<? extends Entity>, Set<Entity>> entitiesByClass = new HashMap<>();
+    private final Map<UUID, PlayerEntity> playerEntities = new HashMap<>();
+    private final Long2LongMap cachedPlayerEntityLinks = new Long2LongOpenHashMap();
     private Map<UUID, BossBar> bossBars = Collections.synchronizedMap(new HashMap<>());
-    private Long2LongMap cachedPlayerEntityLinks = Long2LongMaps.synchronize(new Long2LongOpenHashMap());
+    /**
+     * Entities that moved since the last tick; their movement is sent as one combined packet per tick.
+     * Only used on the session's event loop.
+     */
+    private final Set<Entity> movedEntities = new ObjectOpenHashSet<>();
+    /**
+     * Entities that are cached but not spawned on the client because they are outside of its render distance.
+     * Only used on the session's event loop.
+     */
+    private final Set<Entity> culledEntities = new ObjectOpenHashSet<>();
+    /**
+     * Set when the player changes chunk or render distance, so every entity is checked against the new range.
+     * Only used on the session's event loop.
+     */
+    private boolean interestChanged;
 
     @Getter
     private AtomicLong nextEntityId = new AtomicLong(2L);
 
     public EntityCache(GeyserSession session) {
         this.session = session;
+        cachedPlayerEntityLinks.defaultReturnValue(-1);
+        session.getConnector().getTickScheduler().scheduleRepeating(session, "entity-movement", this::flushMovement, 1, 1);
     }
 
     public void spawnEntity(Entity entity) {
         if (cacheEntity(entity)) {
-            entity.spawnEntity(session);
+            if (canCull(entity) && !isInRange(entity, 0)) {
+                culledEntities.add(entity);
+            } else {
+                entity.spawnEntity(session);
+            }
         }
     }
 
     public boolean cacheEntity(Entity entity) {
-        // Check to see if the entity exists, otherwise we can end up with duplicated mobs
-        if (!entityIdTranslations.containsKey(entity.getEntityId())) {
-            entityIdTranslations.put(entity.getEntityId(), entity.getGeyserId());
-            entities.put(entity.getGeyserId(), entity);
+        long stamp = lock.writeLock();
+        try {
+            // Check to see if the entity exists, otherwise we can end up with duplicated mobs
+            if (entitiesByJavaId.containsKey(entity.getEntityId())) {
+                return false;
+            }
+            entitiesByJavaId.put(entity.getEntityId(), entity);
+            entitiesByGeyserId.put(entity.getGeyserId(), entity);
+            entitiesByClass.computeIfAbsent(entity.getClass(), clazz -> new ObjectOpenHashSet<>()).add(entity);
             return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        return false;
     }
 
     public boolean removeEntity(Entity entity, boolean force) {
-        if (entity != null && entity.isValid() && (force || entity.despawnEntity(session))) {
-            long geyserId = entityIdTranslations.remove(entity.getEntityId());
-            entities.remove(geyserId);
+        if (entity == null) {
+            return false;
+        }
+        // Culled entities only exist on our side, so there's nothing to despawn
+        boolean culled = culledEntities.remove(entity);
+        if (culled || entity.isValid() && (force || entity.despawnEntity(session))) {
+            long stamp = lock.writeLock();
+            try {
+                entitiesByJavaId.remove(entity.getEntityId());
+                entitiesByGeyserId.remove(entity.getGeyserId());
+                Set<Entity> entitiesOfClass = entitiesByClass.get(entity.getClass());
+                if (entitiesOfClass != null) {
+                    entitiesOfClass.remove(entity);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            movedEntities.remove(entity);
             return true;
         }
         return false;
     }
 
     public void removeAllEntities() {
-        List<Entity> entities = new ArrayList<>(session.getEntityCache().getEntities().values());
-        for (Entity entity : entities) {
-            session.getEntityCache().removeEntity(entity, false);
+        for (Entity entity : getEntities()) {
+            removeEntity(entity, false);
+        }
+    }
+
+    /**
+     * @return a snapshot of all cached entities, which is safe to iterate while entities are added or removed
+     */
+    public List<Entity> getEntities() {
+        long stamp = lock.readLock();
+        try {
+            return new ArrayList<>(entitiesByGeyserId.values());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void markMovementDirty(Entity entity) {
+        movedEntities.add(entity);
+    }
+
+    /**
+     * @return true if the entity moved since the last tick and its movement wasn't sent yet
+     */
+    public boolean isMovementDirty(Entity entity) {
+        return movedEntities.contains(entity);
+    }
+
+    /**
+     * Marks every entity to be checked against the client's render distance on the next tick
+     */
+    public void updateInterest() {
+        interestChanged = true;
+    }
+
+    /**
+     * Sends the combined movement of every entity that moved since the last tick, and spawns or despawns
+     * entities that entered or left the client's render distance
+     */
+    public void flushMovement() {
+        if (interestChanged) {
+            interestChanged = false;
+            for (Entity entity : getEntities()) {
+                updateInterest(entity);
+            }
+        }
+
+        if (movedEntities.isEmpty()) {
+            return;
+        }
+        // Spawning an entity that came into range may mark other entities as moved
+        Entity[] moved = movedEntities.toArray(new Entity[0]);
+        movedEntities.clear();
+        for (Entity entity : moved) {
+            if (updateInterest(entity) && entity.isValid()) {
+                entity.flushMovement(session);
+            }
+        }
+    }
+
+    /**
+     * Spawns or despawns the entity on the client if it crossed the render distance. Entities are only despawned
+     * one chunk past the point they are spawned at, so entities on the border don't flicker.
+     *
+     * @return true if the entity was already visible and still is
+     */
+    private boolean updateInterest(Entity entity) {
+        if (culledEntities.contains(entity)) {
+            if (isInRange(entity, 0)) {
+                culledEntities.remove(entity);
+                entity.spawnEntity(session);
+                entity.updateBedrockAttributes(session);
+                if (entity instanceof LivingEntity) {
+                    ((LivingEntity) entity).updateEquipment(session);
+                }
+            }
+            return false;
         }
+        if (entity.isValid() && canCull(entity) && !isInRange(entity, 1)) {
+            entity.despawnEntity(session);
+            culledEntities.add(entity);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Entities with custom spawning or despawning logic, and entities that are part of a vehicle, are always sent
+     */
+    private boolean canCull(Entity entity) {
+        if (entity instanceof PlayerEntity || entity instanceof ItemFrameEntity || entity instanceof PaintingEntity
+                || entity instanceof ThrowableEntity || entity instanceof EnderDragonEntity) {
+            return false;
+        }
+        return entity.getPassengers().isEmpty() && !entity.getMetadata().getFlags().getFlag(EntityFlag.RIDING);
+    }
+
+    private boolean isInRange(Entity entity, int margin) {
+        Vector2i chunkPosition = session.getLastChunkPosition();
+        if (chunkPosition == null) {
+            return true;
+        }
+        int chunkX = entity.getPosition().getFloorX() >> 4;
+        int chunkZ = entity.getPosition().getFloorZ() >> 4;
+        int distance = Math.max(Math.abs(chunkX - chunkPosition.getX()), Math.abs(chunkZ - chunkPosition.getY()));
+        return distance <= session.getRenderDistance() + margin;
+    }
+
+    /**
+     * @return if this is the session's event loop, the only thread that changes this cache
+     */
+    private boolean isWriterThread() {
+        return session.getEventLoop().inEventLoop();
     }
 
     public Entity getEntityByGeyserId(long geyserId) {
-        return entities.get(geyserId);
+        if (isWriterThread()) {
+            return entitiesByGeyserId.get(geyserId);
+        }
+        long stamp = lock.readLock();
+        try {
+            return entitiesByGeyserId.get(geyserId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     public Entity getEntityByJavaId(long javaId) {
-        return entities.get(entityIdTranslations.get(javaId));
+        if (isWriterThread()) {
+            return entitiesByJavaId.get(javaId);
+        }
+        long stamp = lock.readLock();
+        try {
+            return entitiesByJavaId.get(javaId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     public <T extends Entity> Set<T> getEntitiesByType(Class<T> entityType) {
+        if (isWriterThread()) {
+            return collectEntitiesByType(entityType);
+        }
+        long stamp = lock.readLock();
+        try {
+            return collectEntitiesByType(entityType);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T extends Entity> Set<T> collectEntitiesByType(Class<T> entityType) {
         Set<T> entitiesOfType = new ObjectOpenHashSet<>();
-        for (Entity entity : (entityType == PlayerEntity.class ? playerEntities : entities).values()) {
-            if (entity.is(entityType)) {
-                entitiesOfType.add(entity.as(entityType));
+        if (entityType == PlayerEntity.class) {
+            // Includes players that haven't been spawned yet
+            for (PlayerEntity entity : playerEntities.values()) {
+                entitiesOfType.add(entityType.cast(entity));
+            }
+            return entitiesOfType;
+        }
+        for (Map.Entry<Class<? extends Entity>, Set<Entity>> entry : entitiesByClass.entrySet()) {
+            if (entityType.isAssignableFrom(entry.getKey())) {
+                for (Entity entity : entry.getValue()) {
+                    entitiesOfType.add(entityType.cast(entity));
+                }
             }
         }
         return entitiesOfType;
     }
 
     public void addPlayerEntity(PlayerEntity entity) {
-        playerEntities.put(entity.getUuid(), entity);
+        long stamp = lock.writeLock();
+        try {
+            playerEntities.put(entity.getUuid(), entity);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     public PlayerEntity getPlayerEntity(UUID uuid) {
-        return playerEntities.get(uuid);
+        if (isWriterThread()) {
+            return playerEntities.get(uuid);
+        }
+        long stamp = lock.readLock();
+        try {
+            return playerEntities.get(uuid);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     public void removePlayerEntity(UUID uuid) {
-        playerEntities.remove(uuid);
+        long stamp = lock.writeLock();
+        try {
+            playerEntities.remove(uuid);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     public void addBossBar(UUID uuid, BossBar bossBar) {
@@ -139,17 +364,39 @@ public class EntityCache {
     }
 
     public void clear() {
-        entities = null;
-        entityIdTranslations = null;
-        playerEntities = null;
+        long stamp = lock.writeLock();
+        try {
+            entitiesByGeyserId.clear();
+            entitiesByJavaId.clear();
+            entitiesByClass.clear();
+            playerEntities.clear();
+            cachedPlayerEntityLinks.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
         bossBars = null;
+        movedEntities.clear();
+        culledEntities.clear();
     }
 
     public long getCachedPlayerEntityLink(long playerId) {
-        return cachedPlayerEntityLinks.getOrDefault(playerId, -1);
+        if (isWriterThread()) {
+            return cachedPlayerEntityLinks.get(playerId);
+        }
+        long stamp = lock.readLock();
+        try {
+            return cachedPlayerEntityLinks.get(playerId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     public void addCachedPlayerEntityLink(long playerId, long linkedEntityId) {
-        cachedPlayerEntityLinks.put(playerId, linkedEntityId);
+        long stamp = lock.writeLock();
+        try {
+            cachedPlayerEntityLinks.put(playerId, linkedEntityId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 }
@@ -47,7 +47,7 @@ public class WorldCache {
         this.session = session;
         this.scoreboard = new Scoreboard(session);
         scoreboardUpdater = new ScoreboardUpdater(this);
-        scoreboardUpdater.start();
+        session.getConnector().getTickScheduler().scheduleRepeating(session, "scoreboard", scoreboardUpdater, 1, 1);
     }
 
     public void removeScoreboard() {
@@ -29,24 +29,28 @@ import com.github.steveice10.mc.protocol.packet.ingame.server.ServerPlayerListDa
 import com.github.steveice10.mc.protocol.packet.ingame.server.world.ServerUpdateLightPacket;
 import com.github.steveice10.packetlib.packet.Packet;
 import com.nukkitx.protocol.bedrock.BedrockPacket;
-import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.geysermc.connector.GeyserConnector;
+import org.geysermc.connector.GeyserLogger;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.utils.FileUtils;
 import org.geysermc.connector.utils.LanguageUtils;
+import org.geysermc.connector.utils.Timings;
 import org.reflections.Reflections;
 
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class PacketTranslatorRegistry<T> {
-    private final Map<Class<? extends T>, PacketTranslator<? extends T>> translators = new HashMap<>();
+    /**
+     * The translator of every packet class, including ignored packets, so translating a packet takes a single lookup.
+     * Only written to while the registries are created.
+     */
+    private final Map<Class<?>, RegisteredTranslator> translators = new IdentityHashMap<>();
 
     public static final PacketTranslatorRegistry<Packet> JAVA_TRANSLATOR = new PacketTranslatorRegistry<>();
     public static final PacketTranslatorRegistry<BedrockPacket> BEDROCK_TRANSLATOR = new PacketTranslatorRegistry<>();
 
-    private static final ObjectArrayList<Class<?>> IGNORED_PACKETS = new ObjectArrayList<>();
-
     static {
         Reflections ref = GeyserConnector.getInstance().useXmlReflections() ? FileUtils.getReflections("org.geysermc.connector.network.translators") : new Reflections("org.geysermc.connector.network.translators");
 
@@ -60,12 +64,12 @@ public class PacketTranslatorRegistry<T> {
                     Class<? extends Packet> targetPacket = (Class<? extends Packet>) packet;
                     PacketTranslator<? extends Packet> translator = (PacketTranslator<? extends Packet>) clazz.newInstance();
 
-                    JAVA_TRANSLATOR.translators.put(targetPacket, translator);
+                    JAVA_TRANSLATOR.translators.put(targetPacket, new RegisteredTranslator(translator));
                 } else if (BedrockPacket.class.isAssignableFrom(packet)) {
                     Class<? extends BedrockPacket> targetPacket = (Class<? extends BedrockPacket>) packet;
                     PacketTranslator<? extends BedrockPacket> translator = (PacketTranslator<? extends BedrockPacket>) clazz.newInstance();
 
-                    BEDROCK_TRANSLATOR.translators.put(targetPacket, translator);
+                    BEDROCK_TRANSLATOR.translators.put(targetPacket, new RegisteredTranslator(translator));
                 } else {
                     GeyserConnector.getInstance().getLogger().error(LanguageUtils.getLocaleStringLog("geyser.network.translator.invalid_target", clazz.getCanonicalName()));
                 }
@@ -74,8 +78,8 @@ public class PacketTranslatorRegistry<T> {
             }
         }
 
-        IGNORED_PACKETS.add(ServerUpdateLightPacket.class); // Light is handled on Bedrock for us
-        IGNORED_PACKETS.add(ServerPlayerListDataPacket.class); // Cant be implemented in bedrock
+        JAVA_TRANSLATOR.translators.put(ServerUpdateLightPacket.class, RegisteredTranslator.IGNORED); // Light is handled on Bedrock for us
+        JAVA_TRANSLATOR.translators.put(ServerPlayerListDataPacket.class, RegisteredTranslator.IGNORED); // Cant be implemented in bedrock
     }
 
     private PacketTranslatorRegistry() {
@@ -88,19 +92,60 @@ public class PacketTranslatorRegistry<T> {
     @SuppressWarnings("unchecked")
     public <P extends T> boolean translate(Class<? extends P> clazz, P packet, GeyserSession session) {
         if (!session.getUpstream().isClosed() && !session.isClosed()) {
-            try {
-                if (translators.containsKey(clazz)) {
-                    ((PacketTranslator<P>) translators.get(clazz)).translate(packet, session);
-                    return true;
-                } else {
-                    if (!IGNORED_PACKETS.contains(clazz))
-                        GeyserConnector.getInstance().getLogger().debug("Could not find packet for " + (packet.toString().length() > 25 ? packet.getClass().getSimpleName() : packet));
+            RegisteredTranslator registered = translators.get(clazz);
+            if (registered == null) {
+                GeyserLogger logger = GeyserConnector.getInstance().getLogger();
+                if (logger.isDebug()) {
+                    logger.debug("Could not find packet for " + (packet.toString().length() > 25 ? packet.getClass().getSimpleName() : packet));
                 }
+                return false;
+            }
+            if (registered == RegisteredTranslator.IGNORED) {
+                return false;
+            }
+
+            long startTime = System.nanoTime();
+            try {
+                ((PacketTranslator<P>) registered.translator).translate(packet, session);
+                return true;
             } catch (Throwable ex) {
+                registered.timings.recordException();
                 GeyserConnector.getInstance().getLogger().error(LanguageUtils.getLocaleStringLog("geyser.network.translator.packet.failed", packet.getClass().getSimpleName()), ex);
                 ex.printStackTrace();
+            } finally {
+                registered.timings.record(System.nanoTime() - startTime);
             }
         }
         return false;
     }
+
+    /**
+     * Translators that hand their work to another thread, such as the chunk translators, are only timed up to the handoff
+     *
+     * @return the timings of every packet type that has been translated at least once, by the name of the packet
+     */
+    public Map<String, Timings> getTimings() {
+        Map<String, Timings> timings = new TreeMap<>();
+        for (Map.Entry<Class<?>, RegisteredTranslator> entry : translators.entrySet()) {
+            RegisteredTranslator registered = entry.getValue();
+            if (registered != RegisteredTranslator.IGNORED && registered.timings.getRuns() > 0) {
+                timings.put(entry.getKey().getSimpleName(), registered.timings);
+            }
+        }
+        return timings;
+    }
+
+    private static class RegisteredTranslator {
+        /**
+         * Marks packets that are deliberately not translated
+         */
+        private static final RegisteredTranslator IGNORED = new RegisteredTranslator(null);
+
+        private final PacketTranslator<?> translator;
+        private final Timings timings = new Timings();
+
+        private RegisteredTranslator(PacketTranslator<?> translator) {
+            this.translator = translator;
+        }
+    }
 }
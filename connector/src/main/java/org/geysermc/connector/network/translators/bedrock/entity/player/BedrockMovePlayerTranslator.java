@@ -42,10 +42,13 @@ import org.geysermc.connector.network.translators.PacketTranslator;
 import org.geysermc.connector.network.translators.Translator;
 import org.geysermc.connector.network.translators.collision.CollisionManager;
 
-import java.util.concurrent.TimeUnit;
-
 @Translator(packet = MovePlayerPacket.class)
 public class BedrockMovePlayerTranslator extends PacketTranslator<MovePlayerPacket> {
+    /**
+     * How long the player has to stay still before their position is sent again
+     */
+    private static final long IDLE_MOVEMENT_MILLIS = 3000;
+    private static final int IDLE_CHECK_TICKS = 20;
 
     @Override
     public void translate(MovePlayerPacket packet, GeyserSession session) {
@@ -63,10 +66,6 @@ public class BedrockMovePlayerTranslator extends PacketTranslator<MovePlayerPack
             return;
         }
 
-        if (session.getMovementSendIfIdle() != null) {
-            session.getMovementSendIfIdle().cancel(true);
-        }
-
         if (session.confirmTeleport(packet.getPosition().toDouble().sub(0, EntityType.PLAYER.getOffset(), 0))) {
             // head yaw, pitch, head yaw
             Vector3f rotation = Vector3f.from(packet.getRotation().getY(), packet.getRotation().getX(), packet.getRotation().getY());
@@ -122,9 +121,12 @@ public class BedrockMovePlayerTranslator extends PacketTranslator<MovePlayerPack
             entity.getRightParrot().moveAbsolute(session, entity.getPosition(), entity.getRotation(), true, false);
         }
 
-        // Schedule a position send loop if the player is idle
-        session.setMovementSendIfIdle(session.getConnector().getGeneralThreadPool().schedule(() -> sendPositionIfIdle(session),
-                3, TimeUnit.SECONDS));
+        // Send the position every few seconds if the player is idle
+        session.setLastMovementTime(System.currentTimeMillis());
+        if (session.getIdleMovementTask() == null) {
+            session.setIdleMovementTask(session.getConnector().getTickScheduler().scheduleRepeating(session, "idle-movement",
+                    () -> sendPositionIfIdle(session), IDLE_CHECK_TICKS, IDLE_CHECK_TICKS));
+        }
     }
 
     public boolean isValidMove(GeyserSession session, MovePlayerPacket.Mode mode, Vector3f currentPosition, Vector3f newPosition) {
@@ -214,7 +216,10 @@ public class BedrockMovePlayerTranslator extends PacketTranslator<MovePlayerPack
     }
 
     private void sendPositionIfIdle(GeyserSession session) {
-        if (session.isClosed()) return;
+        long lastMovementTime = session.getLastMovementTime();
+        if (lastMovementTime == 0 || System.currentTimeMillis() - lastMovementTime < IDLE_MOVEMENT_MILLIS) {
+            return;
+        }
         PlayerEntity entity = session.getPlayerEntity();
         // Recalculate in case something else changed position
         Vector3d position = adjustBedrockPosition(session, entity.getPosition(), entity.isOnGround());
@@ -224,8 +229,7 @@ public class BedrockMovePlayerTranslator extends PacketTranslator<MovePlayerPack
                     position.getX(), position.getY(), position.getZ());
             session.sendDownstreamPacket(packet);
         }
-        session.setMovementSendIfIdle(session.getConnector().getGeneralThreadPool().schedule(() -> sendPositionIfIdle(session),
-                3, TimeUnit.SECONDS));
+        session.setLastMovementTime(System.currentTimeMillis());
     }
 }
 
@@ -49,4 +49,15 @@ public class BoundingBox {
                 (Math.abs((middleY + offsetY) - otherBox.getMiddleY()) * 2 < (sizeY + otherBox.getSizeY())) &&
                 (Math.abs((middleZ + offsetZ) - otherBox.getMiddleZ()) * 2 < (sizeZ + otherBox.getSizeZ()));
     }
+
+    /**
+     * Check for an intersection as if the other box was grown horizontally, without modifying it
+     *
+     * @param horizontalGrowth how far the other box is grown on each side along the X and Z axes
+     */
+    public boolean checkIntersection(int offsetX, int offsetY, int offsetZ, BoundingBox otherBox, double horizontalGrowth) {
+        return (Math.abs((middleX + offsetX) - otherBox.getMiddleX()) * 2 < (sizeX + otherBox.getSizeX() + horizontalGrowth * 2)) &&
+                (Math.abs((middleY + offsetY) - otherBox.getMiddleY()) * 2 < (sizeY + otherBox.getSizeY())) &&
+                (Math.abs((middleZ + offsetZ) - otherBox.getMiddleZ()) * 2 < (sizeZ + otherBox.getSizeZ() + horizontalGrowth * 2));
+    }
 }
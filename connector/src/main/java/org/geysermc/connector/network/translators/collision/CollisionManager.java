@@ -27,16 +27,13 @@ package org.geysermc.connector.network.translators.collision;
 
 import com.nukkitx.math.vector.Vector3d;
 import com.nukkitx.math.vector.Vector3f;
-import com.nukkitx.math.vector.Vector3i;
 import com.nukkitx.protocol.bedrock.data.entity.EntityFlag;
 import com.nukkitx.protocol.bedrock.data.entity.EntityFlags;
 import lombok.Getter;
 import lombok.Setter;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.collision.translators.BlockCollision;
-
-import java.util.ArrayList;
-import java.util.List;
+import org.geysermc.connector.network.translators.world.WorldManager;
 
 public class CollisionManager {
 
@@ -63,6 +60,18 @@ public class CollisionManager {
      */
     public static final double COLLISION_TOLERANCE = 0.00001;
 
+    /**
+     * The Java block states of the blocks the player could collide with, read once per move and reused between moves.
+     * Indexed by {@link #getScratchIndex(int, int, int)}.
+     */
+    private int[] collidableBlocks = new int[0];
+    private int minCollisionX;
+    private int minCollisionY;
+    private int minCollisionZ;
+    private int sizeCollisionX;
+    private int sizeCollisionY;
+    private int sizeCollisionZ;
+
     public CollisionManager(GeyserSession session) {
         this.session = session;
         this.playerBoundingBox = new BoundingBox(0, 0, 0, 0.6, 1.8, 0.6);
@@ -113,40 +122,48 @@ public class CollisionManager {
         }
     }
 
-    public List<Vector3i> getPlayerCollidableBlocks() {
-        List<Vector3i> blocks = new ArrayList<>();
-
-        Vector3d position = Vector3d.from(playerBoundingBox.getMiddleX(),
-                playerBoundingBox.getMiddleY() - (playerBoundingBox.getSizeY() / 2),
-                playerBoundingBox.getMiddleZ());
+    /**
+     * Reads the block states of every block that could collide with the player into the scratch array with a single
+     * region read from the world manager.
+     */
+    private void readPlayerCollidableBlocks() {
+        double positionX = playerBoundingBox.getMiddleX();
+        double positionY = playerBoundingBox.getMiddleY() - (playerBoundingBox.getSizeY() / 2);
+        double positionZ = playerBoundingBox.getMiddleZ();
 
         // Loop through all blocks that could collide with the player
-        int minCollisionX = (int) Math.floor(position.getX() - ((playerBoundingBox.getSizeX() / 2) + COLLISION_TOLERANCE));
-        int maxCollisionX = (int) Math.floor(position.getX() + (playerBoundingBox.getSizeX() / 2) + COLLISION_TOLERANCE);
+        minCollisionX = (int) Math.floor(positionX - ((playerBoundingBox.getSizeX() / 2) + COLLISION_TOLERANCE));
+        int maxCollisionX = (int) Math.floor(positionX + (playerBoundingBox.getSizeX() / 2) + COLLISION_TOLERANCE);
 
         // Y extends 0.5 blocks down because of fence hitboxes
-        int minCollisionY = (int) Math.floor(position.getY() - 0.5);
+        minCollisionY = (int) Math.floor(positionY - 0.5);
 
-        int maxCollisionY = (int) Math.floor(position.getY() + playerBoundingBox.getSizeY());
+        int maxCollisionY = (int) Math.floor(positionY + playerBoundingBox.getSizeY());
 
-        int minCollisionZ = (int) Math.floor(position.getZ() - ((playerBoundingBox.getSizeZ() / 2) + COLLISION_TOLERANCE));
-        int maxCollisionZ = (int) Math.floor(position.getZ() + (playerBoundingBox.getSizeZ() / 2) + COLLISION_TOLERANCE);
+        minCollisionZ = (int) Math.floor(positionZ - ((playerBoundingBox.getSizeZ() / 2) + COLLISION_TOLERANCE));
+        int maxCollisionZ = (int) Math.floor(positionZ + (playerBoundingBox.getSizeZ() / 2) + COLLISION_TOLERANCE);
 
-        for (int y = minCollisionY; y < maxCollisionY + 1; y++) {
-            for (int x = minCollisionX; x < maxCollisionX + 1; x++) {
-                for (int z = minCollisionZ; z < maxCollisionZ + 1; z++) {
-                    blocks.add(Vector3i.from(x, y, z));
-                }
-            }
+        sizeCollisionX = maxCollisionX - minCollisionX + 1;
+        sizeCollisionY = maxCollisionY - minCollisionY + 1;
+        sizeCollisionZ = maxCollisionZ - minCollisionZ + 1;
+
+        int size = sizeCollisionX * sizeCollisionY * sizeCollisionZ;
+        if (collidableBlocks.length < size) {
+            collidableBlocks = new int[size];
         }
 
-        return blocks;
+        session.getConnector().getWorldManager().getBlocksInRegion(session, minCollisionX, minCollisionY, minCollisionZ,
+                sizeCollisionX, sizeCollisionY, sizeCollisionZ, collidableBlocks);
+    }
+
+    private int getScratchIndex(int x, int y, int z) {
+        return WorldManager.getRegionIndex(x - minCollisionX, y - minCollisionY, z - minCollisionZ, sizeCollisionX, sizeCollisionZ);
     }
 
     /**
      * Returns false if the movement is invalid, and in this case it shouldn't be sent to the server and should be
      * cancelled
-     * See {@link BlockCollision#correctPosition(GeyserSession, BoundingBox)} for more info
+     * See {@link BlockCollision#correctPosition(GeyserSession, int, int, int, BoundingBox)} for more info
      */
     public boolean correctPlayerPosition() {
 
@@ -154,26 +171,42 @@ public class CollisionManager {
         touchingScaffolding = false;
         onScaffolding = false;
 
-        List<Vector3i> collidableBlocks = getPlayerCollidableBlocks();
+        readPlayerCollidableBlocks();
+        int maxCollisionX = minCollisionX + sizeCollisionX;
+        int maxCollisionY = minCollisionY + sizeCollisionY;
+        int maxCollisionZ = minCollisionZ + sizeCollisionZ;
 
         // Used when correction code needs to be run before the main correction
-        for (Vector3i blockPos : collidableBlocks) {
-            BlockCollision blockCollision = CollisionTranslator.getCollisionAt(
-                    session, blockPos.getX(), blockPos.getY(), blockPos.getZ()
-            );
-            if (blockCollision != null) {
-                blockCollision.beforeCorrectPosition(playerBoundingBox);
+        for (int y = minCollisionY; y < maxCollisionY; y++) {
+            for (int x = minCollisionX; x < maxCollisionX; x++) {
+                for (int z = minCollisionZ; z < maxCollisionZ; z++) {
+                    int blockId = collidableBlocks[getScratchIndex(x, y, z)];
+                    // Only special collisions have anything to do here
+                    if (CollisionTranslator.getShape(blockId) == CollisionShape.SPECIAL) {
+                        CollisionTranslator.getCollision(blockId).beforeCorrectPosition(x, y, z, playerBoundingBox);
+                    }
+                }
             }
         }
 
         // Main correction code
-        for (Vector3i blockPos : collidableBlocks) {
-            BlockCollision blockCollision = CollisionTranslator.getCollisionAt(
-                    session, blockPos.getX(), blockPos.getY(), blockPos.getZ()
-            );
-            if (blockCollision != null) {
-                if (!blockCollision.correctPosition(session, playerBoundingBox)) {
-                    return false;
+        for (int y = minCollisionY; y < maxCollisionY; y++) {
+            for (int x = minCollisionX; x < maxCollisionX; x++) {
+                for (int z = minCollisionZ; z < maxCollisionZ; z++) {
+                    int blockId = collidableBlocks[getScratchIndex(x, y, z)];
+                    CollisionShape shape = CollisionTranslator.getShape(blockId);
+                    if (shape == CollisionShape.EMPTY) {
+                        continue;
+                    }
+                    if (shape == CollisionShape.FULL_CUBE && !isTouchingFullCube(x, y, z)) {
+                        // Nothing to correct, which is the case for the blocks below a player walking on the ground
+                        continue;
+                    }
+
+                    BlockCollision blockCollision = CollisionTranslator.getCollision(blockId);
+                    if (!blockCollision.correctPosition(session, x, y, z, playerBoundingBox)) {
+                        return false;
+                    }
                 }
             }
         }
@@ -183,6 +216,16 @@ public class CollisionManager {
         return true;
     }
 
+    /**
+     * Whether a full cube could change the position of the player in {@link BlockCollision#correctPosition}. The player
+     * is grown horizontally by the same tolerance as there, so a full cube that fails this check has no effect.
+     */
+    private boolean isTouchingFullCube(int x, int y, int z) {
+        return Math.abs((x + 0.5) - playerBoundingBox.getMiddleX()) * 2 < 1 + playerBoundingBox.getSizeX() + COLLISION_TOLERANCE * 2 &&
+                Math.abs((y + 0.5) - playerBoundingBox.getMiddleY()) * 2 < 1 + playerBoundingBox.getSizeY() &&
+                Math.abs((z + 0.5) - playerBoundingBox.getMiddleZ()) * 2 < 1 + playerBoundingBox.getSizeZ() + COLLISION_TOLERANCE * 2;
+    }
+
     /**
      * Updates scaffolding entity flags
      * Scaffolding needs to be checked per-move since it's a flag in Bedrock but Java does it client-side
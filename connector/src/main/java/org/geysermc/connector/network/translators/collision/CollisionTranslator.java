@@ -27,8 +27,6 @@ package org.geysermc.connector.network.translators.collision;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.google.common.collect.BiMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import org.geysermc.connector.GeyserConnector;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.collision.translators.BlockCollision;
@@ -45,7 +43,16 @@ import java.util.*;
 import java.util.regex.Pattern;
 
 public class CollisionTranslator {
-    private static final Int2ObjectMap<BlockCollision> COLLISION_MAP = new Int2ObjectOpenHashMap<>();
+    /**
+     * The collision of every Java block state, indexed by the block state. Null if the block has no collision.
+     */
+    private static BlockCollision[] COLLISIONS = new BlockCollision[0];
+    /**
+     * The shape of every Java block state, indexed by the block state
+     */
+    private static CollisionShape[] SHAPES = new CollisionShape[0];
+
+    private static final BoundingBox FULL_CUBE = new BoundingBox(0.5, 0.5, 0.5, 1, 1, 1);
 
     public static void init() {
         // If chunk caching is off then don't initialize
@@ -79,14 +86,20 @@ public class CollisionTranslator {
 
         // Map of classes that don't change based on parameters that have already been created
         Map<Class<?>, BlockCollision> instantiatedCollision = new HashMap<>();
+        BlockCollision[] collisions = new BlockCollision[BlockTranslator.getJavaBlockStateCount()];
+        CollisionShape[] shapes = new CollisionShape[collisions.length];
+        Arrays.fill(shapes, CollisionShape.EMPTY);
 
         for (Map.Entry<String, Integer> entry : javaIdBlockMap.entrySet()) {
             BlockCollision newCollision = instantiateCollision(entry.getKey(), entry.getValue(), collisionTypes, annotationMap, instantiatedCollision, collisionList);
             if (newCollision != null) {
                 instantiatedCollision.put(newCollision.getClass(), newCollision);
             }
-            COLLISION_MAP.put(entry.getValue().intValue(), newCollision);
+            collisions[entry.getValue()] = newCollision;
+            shapes[entry.getValue()] = classifyShape(newCollision);
         }
+        COLLISIONS = collisions;
+        SHAPES = shapes;
     }
 
     private static BlockCollision instantiateCollision(String blockID, int numericBlockID, List<Class<?>> collisionTypes, Map<Class<?>, CollisionRemapper> annotationMap, Map<Class<?>, BlockCollision> instantiatedCollision, ArrayNode collisionList) {
@@ -96,7 +109,7 @@ public class CollisionTranslator {
         if (blockID.contains("[")) {
             params = "[" + blockID.split("\\[")[1];
         }
-        int collisionIndex = BlockTranslator.JAVA_RUNTIME_ID_TO_COLLISION_INDEX.get(numericBlockID);
+        int collisionIndex = BlockTranslator.getCollisionIndex(numericBlockID);
 
         for (Class<?> type : collisionTypes) {
             CollisionRemapper annotation = annotationMap.get(type);
@@ -169,24 +182,57 @@ public class CollisionTranslator {
         return collision;
     }
 
-    // Note: these reuse classes, so don't try to store more than once instance or coordinates will get overwritten
+    private static CollisionShape classifyShape(BlockCollision collision) {
+        if (collision == null) {
+            return CollisionShape.EMPTY;
+        }
+        Class<?> type = collision.getClass();
+        if (type != OtherCollision.class && type != SolidCollision.class && type != EmptyCollision.class) {
+            // These override the default correction
+            return CollisionShape.SPECIAL;
+        }
 
-    public static BlockCollision getCollision(int blockID, int x, int y, int z) {
-        BlockCollision collision = COLLISION_MAP.get(blockID);
-        if (collision != null) {
-            collision.setPosition(x, y, z);
+        BoundingBox[] boxes = collision.getBoundingBoxes();
+        if (boxes.length == 0) {
+            return CollisionShape.EMPTY;
         }
-        return collision;
+        if (boxes.length == 1) {
+            return FULL_CUBE.equals(boxes[0]) ? CollisionShape.FULL_CUBE : CollisionShape.SINGLE_BOX;
+        }
+        return CollisionShape.MULTI_BOX;
+    }
+
+    /**
+     * @param blockID the Java block state ID
+     * @return the shape of the collision of the block state
+     */
+    public static CollisionShape getShape(int blockID) {
+        if (blockID < 0 || blockID >= SHAPES.length) {
+            return CollisionShape.EMPTY;
+        }
+        return SHAPES[blockID];
     }
 
+    /**
+     * Get the collision of a Java block state. The returned instance is shared, so the block coordinates must be
+     * passed to its methods rather than stored on it.
+     *
+     * @param blockID the Java block state ID
+     * @return the collision of the block state, or null if it has none
+     */
+    public static BlockCollision getCollision(int blockID) {
+        if (blockID < 0 || blockID >= COLLISIONS.length) {
+            return null;
+        }
+        return COLLISIONS[blockID];
+    }
 
     public static BlockCollision getCollisionAt(GeyserSession session, int x, int y, int z) {
         try {
-            return getCollision(session.getConnector().getWorldManager().getBlockAt(session, x, y, z), x, y, z);
+            return getCollision(session.getConnector().getWorldManager().getBlockAt(session, x, y, z));
         } catch (ArrayIndexOutOfBoundsException e) {
             // Block out of world
             return null;
         }
     }
-
 }
\ No newline at end of file
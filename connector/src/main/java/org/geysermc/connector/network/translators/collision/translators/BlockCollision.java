@@ -25,23 +25,22 @@
 
 package org.geysermc.connector.network.translators.collision.translators;
 
-import com.nukkitx.math.vector.Vector3d;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.collision.CollisionManager;
 import org.geysermc.connector.network.translators.collision.BoundingBox;
 
+/**
+ * The collision shape of a block state. Instances are shared between every block of that state in every session,
+ * so they must not hold any per-block state; the block coordinates are passed in to each call instead.
+ */
 @EqualsAndHashCode
 public class BlockCollision {
 
     @Getter
     protected BoundingBox[] boundingBoxes;
 
-    protected int x;
-    protected int y;
-    protected int z;
-
     /**
      * This is used for the step up logic.
      * Usually, the player can only step up a block if they are on the same Y level as its bottom face or higher
@@ -54,17 +53,11 @@ public class BlockCollision {
     @EqualsAndHashCode.Exclude
     protected double pushUpTolerance = 1;
 
-    public void setPosition(int x, int y, int z) {
-        this.x = x;
-        this.y = y;
-        this.z = z;
-    }
-
     /**
      * Overridden in classes like SnowCollision and GrassPathCollision when correction code needs to be run before the
      * main correction
      */
-    public void beforeCorrectPosition(BoundingBox playerCollision) {}
+    public void beforeCorrectPosition(int x, int y, int z, BoundingBox playerCollision) {}
 
     /**
      * Returns false if the movement is invalid, and in this case it shouldn't be sent to the server and should be
@@ -72,7 +65,7 @@ public class BlockCollision {
      * While the Java server should do this, it could result in false flags by anticheat
      * This functionality is currently only used in 6 or 7 layer snow
      */
-    public boolean correctPosition(GeyserSession session, BoundingBox playerCollision) {
+    public boolean correctPosition(GeyserSession session, int x, int y, int z, BoundingBox playerCollision) {
         double playerMinY = playerCollision.getMiddleY() - (playerCollision.getSizeY() / 2);
         for (BoundingBox b : this.boundingBoxes) {
             double boxMinY = (b.getMiddleY() + y) - (b.getSizeY() / 2);
@@ -87,55 +80,45 @@ public class BlockCollision {
            }
 
             // Make player collision slightly bigger to pick up on blocks that could cause problems with Passable
-            playerCollision.setSizeX(playerCollision.getSizeX() + CollisionManager.COLLISION_TOLERANCE * 2);
-            playerCollision.setSizeZ(playerCollision.getSizeZ() + CollisionManager.COLLISION_TOLERANCE * 2);
+            double playerSizeX = playerCollision.getSizeX() + CollisionManager.COLLISION_TOLERANCE * 2;
+            double playerSizeZ = playerCollision.getSizeZ() + CollisionManager.COLLISION_TOLERANCE * 2;
 
             // If the player still intersects the block, then push them out
             // This fixes NoCheatPlus's Passable check
             // This check doesn't allow players right up against the block, so they must be pushed slightly away
-            if (b.checkIntersection(x, y, z, playerCollision)) {
-                Vector3d relativePlayerPosition = Vector3d.from(playerCollision.getMiddleX() - x,
-                        playerCollision.getMiddleY() - (playerCollision.getSizeY() / 2) - y,
-                        playerCollision.getMiddleZ() - z);
+            if (b.checkIntersection(x, y, z, playerCollision, CollisionManager.COLLISION_TOLERANCE)) {
+                double relativePlayerX = playerCollision.getMiddleX() - x;
+                double relativePlayerZ = playerCollision.getMiddleZ() - z;
 
-                Vector3d northFacePos = Vector3d.from(b.getMiddleX(),
-                        b.getMiddleY(),
-                        b.getMiddleZ() - (b.getSizeZ() / 2));
+                double northFaceZ = b.getMiddleZ() - (b.getSizeZ() / 2);
+                double southFaceZ = b.getMiddleZ() + (b.getSizeZ() / 2);
+                double eastFaceX = b.getMiddleX() + (b.getSizeX() / 2);
+                double westFaceX = b.getMiddleX() - (b.getSizeX() / 2);
 
-                Vector3d southFacePos = Vector3d.from(b.getMiddleX(),
-                        b.getMiddleY(),
-                        b.getMiddleZ() + (b.getSizeZ() / 2));
-
-                Vector3d eastFacePos = Vector3d.from(b.getMiddleX()  + (b.getSizeX() / 2),
-                        b.getMiddleY(),
-                        b.getMiddleZ());
-
-                Vector3d westFacePos = Vector3d.from(b.getMiddleX()  - (b.getSizeX() / 2),
-                        b.getMiddleY(),
-                        b.getMiddleZ());
-
-                double translateDistance = northFacePos.getZ() - relativePlayerPosition.getZ() - (playerCollision.getSizeZ() / 2);
+                double translateDistance = northFaceZ - relativePlayerZ - (playerSizeZ / 2);
                 if (Math.abs(translateDistance) < CollisionManager.COLLISION_TOLERANCE * 1.1) {
                     playerCollision.translate(0, 0, translateDistance);
                 }
                 
-                translateDistance = southFacePos.getZ() - relativePlayerPosition.getZ() + (playerCollision.getSizeZ() / 2);
+                translateDistance = southFaceZ - relativePlayerZ + (playerSizeZ / 2);
                 if (Math.abs(translateDistance) < CollisionManager.COLLISION_TOLERANCE * 1.1) {
                     playerCollision.translate(0, 0, translateDistance);
                 }
 
-                translateDistance = eastFacePos.getX() - relativePlayerPosition.getX() + (playerCollision.getSizeX() / 2);
+                translateDistance = eastFaceX - relativePlayerX + (playerSizeX / 2);
                 if (Math.abs(translateDistance) < CollisionManager.COLLISION_TOLERANCE * 1.1) {
                     playerCollision.translate(translateDistance, 0, 0);
                 }
 
-                translateDistance = westFacePos.getX() - relativePlayerPosition.getX() - (playerCollision.getSizeX() / 2);
+                translateDistance = westFaceX - relativePlayerX - (playerSizeX / 2);
                 if (Math.abs(translateDistance) < CollisionManager.COLLISION_TOLERANCE * 1.1) {
                     playerCollision.translate(translateDistance, 0, 0);
                 }
             }
+        }
 
-            // Set the collision size back to normal
+        if (boundingBoxes.length != 0) {
+            // Undo any rounding left behind by the hacks in subclasses
             playerCollision.setSizeX(0.6);
             playerCollision.setSizeZ(0.6);
         }
@@ -143,7 +126,7 @@ public class BlockCollision {
         return true;
     }
 
-    public boolean checkIntersection(BoundingBox playerCollision) {
+    public boolean checkIntersection(int x, int y, int z, BoundingBox playerCollision) {
         for (BoundingBox b : boundingBoxes) {
             if (b.checkIntersection(x, y, z, playerCollision)) {
                 return true;
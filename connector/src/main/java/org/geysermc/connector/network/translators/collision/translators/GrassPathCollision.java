@@ -38,7 +38,7 @@ public class GrassPathCollision extends BlockCollision {
     // Needs to run before the main correction code or it can move the player into blocks
     // This is counteracted by the main collision code pushing them out
     @Override
-    public void beforeCorrectPosition(BoundingBox playerCollision) {
+    public void beforeCorrectPosition(int x, int y, int z, BoundingBox playerCollision) {
         // In Bedrock, grass paths are small blocks so the player must be pushed down
         double playerMinY = playerCollision.getMiddleY() - (playerCollision.getSizeY() / 2);
         // If the player is in the buggy area, push them down
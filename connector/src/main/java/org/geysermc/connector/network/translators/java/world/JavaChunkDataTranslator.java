@@ -27,20 +27,13 @@ package org.geysermc.connector.network.translators.java.world;
 
 import com.github.steveice10.mc.protocol.data.game.chunk.Column;
 import com.github.steveice10.mc.protocol.packet.ingame.server.world.ServerChunkDataPacket;
-import com.nukkitx.nbt.NBTOutputStream;
-import com.nukkitx.nbt.NbtMap;
-import com.nukkitx.nbt.NbtUtils;
-import com.nukkitx.network.VarInts;
-import com.nukkitx.protocol.bedrock.packet.LevelChunkPacket;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufAllocator;
-import io.netty.buffer.ByteBufOutputStream;
 import org.geysermc.connector.GeyserConnector;
 import org.geysermc.connector.network.session.GeyserSession;
-import org.geysermc.connector.network.translators.BiomeTranslator;
 import org.geysermc.connector.network.translators.PacketTranslator;
 import org.geysermc.connector.network.translators.Translator;
-import org.geysermc.connector.network.translators.world.chunk.ChunkSection;
+import org.geysermc.connector.network.translators.world.chunk.CachedColumn;
+import org.geysermc.connector.network.translators.world.chunk.ChunkPayload;
+import org.geysermc.connector.network.translators.world.chunk.ChunkPayloadCache;
 import org.geysermc.connector.utils.ChunkUtils;
 
 @Translator(packet = ServerChunkDataPacket.class)
@@ -67,71 +60,38 @@ public class JavaChunkDataTranslator extends PacketTranslator<ServerChunkDataPac
         }
 
         // Merge received column with cache on network thread
-        Column mergedColumn = session.getChunkCache().addToCache(packet.getColumn());
-        if (mergedColumn == null) { // There were no changes?!?
+        Column column = packet.getColumn();
+        if (!session.getChunkCache().addToCache(column)) {
+            // There were no changes
             return;
         }
 
-        boolean isNonFullChunk = packet.getColumn().getBiomeData() == null;
-
-        GeyserConnector.getInstance().getGeneralThreadPool().execute(() -> {
-            try {
-                ChunkUtils.ChunkData chunkData = ChunkUtils.translateToBedrock(session, mergedColumn, isNonFullChunk);
-                ChunkSection[] sections = chunkData.getSections();
-
-                // Find highest section
-                int sectionCount = sections.length - 1;
-                while (sectionCount >= 0 && sections[sectionCount] == null) {
-                    sectionCount--;
-                }
-                sectionCount++;
-
-                // Estimate chunk size
-                int size = 0;
-                for (int i = 0; i < sectionCount; i++) {
-                    ChunkSection section = sections[i];
-                    size += (section != null ? section : ChunkUtils.EMPTY_SECTION).estimateNetworkSize();
-                }
-                size += 256; // Biomes
-                size += 1; // Border blocks
-                size += 1; // Extra data length (always 0)
-                size += chunkData.getBlockEntities().length * 64; // Conservative estimate of 64 bytes per tile entity
-
-                // Allocate output buffer
-                ByteBuf byteBuf = ByteBufAllocator.DEFAULT.buffer(size);
-                byte[] payload;
-                try {
-                    for (int i = 0; i < sectionCount; i++) {
-                        ChunkSection section = sections[i];
-                        (section != null ? section : ChunkUtils.EMPTY_SECTION).writeToNetwork(byteBuf);
-                    }
-
-                    byteBuf.writeBytes(BiomeTranslator.toBedrockBiome(mergedColumn.getBiomeData())); // Biomes - 256 bytes
-                    byteBuf.writeByte(0); // Border blocks - Edu edition only
-                    VarInts.writeUnsignedInt(byteBuf, 0); // extra data length, 0 for now
-
-                    // Encode tile entities into buffer
-                    NBTOutputStream nbtStream = NbtUtils.createNetworkWriter(new ByteBufOutputStream(byteBuf));
-                    for (NbtMap blockEntity : chunkData.getBlockEntities()) {
-                        nbtStream.writeTag(blockEntity);
-                    }
-
-                    // Copy data into byte[], because the protocol lib really likes things that are s l o w
-                    byteBuf.readBytes(payload = new byte[byteBuf.readableBytes()]);
-                } finally {
-                    byteBuf.release(); // Release buffer to allow buffer pooling to be useful
+        boolean isNonFullChunk = column.getBiomeData() == null;
+        // Non-full chunks only contain some sections; the rest of the column comes from the cache. If the column
+        // couldn't be cached, the chunk is translated on its own, like it would be without chunk caching.
+        CachedColumn cachedColumn = isNonFullChunk ? session.getChunkCache().getChunk(column.getX(), column.getZ()) : null;
+
+        // Translate off the network thread, in order with the other chunks of this session
+        session.getChunkTranslationQueue().submit(column.getX(), column.getZ(), !isNonFullChunk, () -> {
+            // Full columns don't depend on anything else, so identical columns can share their translation across sessions
+            ChunkPayloadCache.ColumnKey cacheKey = null;
+            if (!isNonFullChunk && ChunkPayloadCache.isEnabled()) {
+                cacheKey = ChunkPayloadCache.computeKey(column);
+                ChunkPayload cachedPayload = ChunkPayloadCache.get(cacheKey);
+                if (cachedPayload != null) {
+                    // Custom skulls are entities specific to this session, so they still need to be spawned
+                    ChunkUtils.spawnCustomSkulls(session, column);
+                    return cachedPayload;
                 }
+            }
 
-                LevelChunkPacket levelChunkPacket = new LevelChunkPacket();
-                levelChunkPacket.setSubChunksLength(sectionCount);
-                levelChunkPacket.setCachingEnabled(false);
-                levelChunkPacket.setChunkX(mergedColumn.getX());
-                levelChunkPacket.setChunkZ(mergedColumn.getZ());
-                levelChunkPacket.setData(payload);
-                session.sendUpstreamPacket(levelChunkPacket);
-            } catch (Exception ex) {
-                ex.printStackTrace();
+            ChunkUtils.ChunkData chunkData = ChunkUtils.translateToBedrock(session, column, cachedColumn, isNonFullChunk);
+            int[] biomeData = cachedColumn != null ? cachedColumn.getBiomeData() : column.getBiomeData();
+            ChunkPayload payload = ChunkUtils.encodePayload(biomeData, chunkData);
+            if (cacheKey != null) {
+                ChunkPayloadCache.put(cacheKey, payload);
             }
+            return payload;
         });
     }
 }
@@ -28,6 +28,7 @@ package org.geysermc.connector.network.translators.java.world;
 import com.github.steveice10.mc.protocol.data.game.world.block.ExplodedBlockRecord;
 import com.github.steveice10.mc.protocol.packet.ingame.server.world.ServerExplosionPacket;
 import com.nukkitx.math.vector.Vector3f;
+import com.nukkitx.math.vector.Vector3i;
 import com.nukkitx.protocol.bedrock.data.LevelEventType;
 import com.nukkitx.protocol.bedrock.data.SoundEvent;
 import com.nukkitx.protocol.bedrock.packet.LevelEventPacket;
@@ -39,15 +40,23 @@ import org.geysermc.connector.network.translators.Translator;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.utils.ChunkUtils;
 
+import java.util.Arrays;
+import java.util.List;
+
 @Translator(packet = ServerExplosionPacket.class)
 public class JavaExplosionTranslator extends PacketTranslator<ServerExplosionPacket> {
 
     @Override
     public void translate(ServerExplosionPacket packet, GeyserSession session) {
-        for (ExplodedBlockRecord record : packet.getExploded()) {
-            Vector3f pos = Vector3f.from(packet.getX() + record.getX(), packet.getY() + record.getY(), packet.getZ() + record.getZ());
-            ChunkUtils.updateBlock(session, BlockTranslator.JAVA_AIR_ID, pos.toInt());
+        List<ExplodedBlockRecord> exploded = packet.getExploded();
+        int[] blockStates = new int[exploded.size()];
+        Arrays.fill(blockStates, BlockTranslator.JAVA_AIR_ID);
+        Vector3i[] positions = new Vector3i[exploded.size()];
+        for (int i = 0; i < positions.length; i++) {
+            ExplodedBlockRecord record = exploded.get(i);
+            positions[i] = Vector3f.from(packet.getX() + record.getX(), packet.getY() + record.getY(), packet.getZ() + record.getZ()).toInt();
         }
+        ChunkUtils.updateBlocks(session, blockStates, positions);
 
         Vector3f pos = Vector3f.from(packet.getX(), packet.getY(), packet.getZ());
         // Since bedrock does not play an explosion sound and particles sound, we have to manually do so
@@ -25,11 +25,13 @@
 
 package org.geysermc.connector.network.translators.java.world;
 
+import com.nukkitx.math.vector.Vector3i;
 import org.geysermc.connector.network.session.GeyserSession;
 import org.geysermc.connector.network.translators.PacketTranslator;
 import org.geysermc.connector.network.translators.Translator;
 import org.geysermc.connector.utils.ChunkUtils;
 
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.Position;
 import com.github.steveice10.mc.protocol.data.game.world.block.BlockChangeRecord;
 import com.github.steveice10.mc.protocol.packet.ingame.server.world.ServerMultiBlockChangePacket;
 
@@ -38,8 +40,14 @@ public class JavaMultiBlockChangeTranslator extends PacketTranslator<ServerMulti
 
     @Override
     public void translate(ServerMultiBlockChangePacket packet, GeyserSession session) {
-        for (BlockChangeRecord record : packet.getRecords()) {
-            ChunkUtils.updateBlock(session, record.getBlock(), record.getPosition());
+        BlockChangeRecord[] records = packet.getRecords();
+        int[] blockStates = new int[records.length];
+        Vector3i[] positions = new Vector3i[records.length];
+        for (int i = 0; i < records.length; i++) {
+            Position position = records[i].getPosition();
+            blockStates[i] = records[i].getBlock();
+            positions[i] = Vector3i.from(position.getX(), position.getY(), position.getZ());
         }
+        ChunkUtils.updateBlocks(session, blockStates, positions);
     }
 }
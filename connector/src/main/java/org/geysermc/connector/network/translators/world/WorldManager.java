@@ -31,8 +31,11 @@ import com.github.steveice10.mc.protocol.data.game.entity.player.GameMode;
 import com.github.steveice10.mc.protocol.data.game.setting.Difficulty;
 import com.nukkitx.math.vector.Vector3i;
 import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.utils.GameRule;
 
+import java.util.BitSet;
+
 /**
  * Class that manages or retrieves various information
  * from the world. Everything in this class should be
@@ -75,6 +78,48 @@ public abstract class WorldManager {
      */
     public abstract int getBlockAt(GeyserSession session, int x, int y, int z);
 
+    /**
+     * Gets the Java block states of every block in a region, fetching anything the region has in common (such as the
+     * world or the chunk) only once. Blocks that can't be read are air.
+     *
+     * @param session the session
+     * @param minX the lowest x coordinate of the region
+     * @param minY the lowest y coordinate of the region
+     * @param minZ the lowest z coordinate of the region
+     * @param sizeX the size of the region along the x axis
+     * @param sizeY the size of the region along the y axis
+     * @param sizeZ the size of the region along the z axis
+     * @param blocks the array to store the block states in, indexed by {@link #getRegionIndex(int, int, int, int, int)}
+     */
+    public void getBlocksInRegion(GeyserSession session, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] blocks) {
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    int blockState;
+                    try {
+                        blockState = getBlockAt(session, minX + x, minY + y, minZ + z);
+                    } catch (ArrayIndexOutOfBoundsException e) {
+                        // Block out of world
+                        blockState = BlockTranslator.JAVA_AIR_ID;
+                    }
+                    blocks[getRegionIndex(x, y, z, sizeX, sizeZ)] = blockState;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param x the x coordinate of the block, relative to the region
+     * @param y the y coordinate of the block, relative to the region
+     * @param z the z coordinate of the block, relative to the region
+     * @param sizeX the size of the region along the x axis
+     * @param sizeZ the size of the region along the z axis
+     * @return the index of the block in an array filled by {@link #getBlocksInRegion(GeyserSession, int, int, int, int, int, int, int[])}
+     */
+    public static int getRegionIndex(int x, int y, int z, int sizeX, int sizeZ) {
+        return (y * sizeZ + z) * sizeX + x;
+    }
+
     /**
      * Gets all block states in the specified chunk section.
      *
@@ -86,6 +131,40 @@ public abstract class WorldManager {
      */
     public abstract void getBlocksInSection(GeyserSession session, int x, int y, int z, Chunk section);
 
+    /**
+     * Gets all block states in the specified sections of a chunk column. World managers that have to look up
+     * the whole column to read a section should override this to only look it up once.
+     *
+     * @param session the session
+     * @param x the chunk's X coordinate
+     * @param z the chunk's Z coordinate
+     * @param sectionsToRead the Y coordinates of the sections to read
+     * @param sections the array to store the sections in, indexed by their Y coordinate; sections that only contain air are left null
+     */
+    public void getBlocksInColumn(GeyserSession session, int x, int z, BitSet sectionsToRead, Chunk[] sections) {
+        getBlocksInSections(session, x, z, sectionsToRead, sections);
+    }
+
+    /**
+     * Reads each of the given sections with {@link #getBlocksInSection(GeyserSession, int, int, int, Chunk)}
+     *
+     * @see #getBlocksInColumn(GeyserSession, int, int, BitSet, Chunk[])
+     */
+    protected final void getBlocksInSections(GeyserSession session, int x, int z, BitSet sectionsToRead, Chunk[] sections) {
+        Chunk section = null;
+        for (int y = sectionsToRead.nextSetBit(0); y >= 0; y = sectionsToRead.nextSetBit(y + 1)) {
+            // An empty section is left untouched, so it can be reused for the next one
+            if (section == null) {
+                section = new Chunk();
+            }
+            getBlocksInSection(session, x, y, z, section);
+            if (!section.isEmpty()) {
+                sections[y] = section;
+                section = null;
+            }
+        }
+    }
+
     /**
      * Checks whether or not this world manager has access to more block data than the chunk cache.
      * <p>
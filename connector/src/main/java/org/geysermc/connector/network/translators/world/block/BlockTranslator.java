@@ -40,6 +40,7 @@ import org.reflections.Reflections;
 
 import java.io.DataInputStream;
 import java.io.InputStream;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -54,7 +55,11 @@ public class BlockTranslator {
     public static final int BEDROCK_AIR_ID;
     public static final int BEDROCK_WATER_ID;
 
-    private static final Int2IntMap JAVA_TO_BEDROCK_BLOCK_MAP = new Int2IntOpenHashMap();
+    /**
+     * Java block states are dense, so everything looked up for every translated block is kept in arrays indexed by the
+     * Java block state instead of hash maps.
+     */
+    private static final int[] JAVA_TO_BEDROCK_BLOCKS;
     private static final Int2IntMap BEDROCK_TO_JAVA_BLOCK_MAP = new Int2IntOpenHashMap();
     /**
      * Stores a list of differences in block identifiers.
@@ -62,18 +67,22 @@ public class BlockTranslator {
      */
     private static final Object2ObjectMap<String, String> JAVA_TO_BEDROCK_IDENTIFIERS = new Object2ObjectOpenHashMap<>();
     private static final BiMap<String, Integer> JAVA_ID_BLOCK_MAP = HashBiMap.create();
-    private static final IntSet WATERLOGGED = new IntOpenHashSet();
+    private static final BitSet WATERLOGGED = new BitSet();
+    /**
+     * Java block states that need a block entity on Bedrock but not on Java, such as flower pots and pistons
+     */
+    private static final BitSet BEDROCK_ONLY_BLOCK_ENTITIES = new BitSet();
     private static final Object2IntMap<NbtMap> ITEM_FRAMES = new Object2IntOpenHashMap<>();
 
     // Bedrock carpet ID, used in LlamaEntity.java for decoration
     public static final int CARPET = 171;
 
-    public static final Int2DoubleMap JAVA_RUNTIME_ID_TO_HARDNESS = new Int2DoubleOpenHashMap();
+    private static final double[] JAVA_RUNTIME_ID_TO_HARDNESS;
     public static final Int2BooleanMap JAVA_RUNTIME_ID_TO_CAN_HARVEST_WITH_HAND = new Int2BooleanOpenHashMap();
     public static final Int2ObjectMap<String> JAVA_RUNTIME_ID_TO_TOOL_TYPE = new Int2ObjectOpenHashMap<>();
 
     // The index of the collision data in collision.json
-    public static final Int2IntMap JAVA_RUNTIME_ID_TO_COLLISION_INDEX = new Int2IntOpenHashMap();
+    private static final int[] JAVA_RUNTIME_ID_TO_COLLISION_INDEX;
 
     /**
      * Java numeric ID to java unique identifier, used for block names in the statistics screen
@@ -129,6 +138,11 @@ public class BlockTranslator {
             throw new AssertionError("Unable to load Java block mappings", e);
         }
 
+        int javaBlockStateCount = blocks.size();
+        JAVA_TO_BEDROCK_BLOCKS = new int[javaBlockStateCount];
+        JAVA_RUNTIME_ID_TO_HARDNESS = new double[javaBlockStateCount];
+        JAVA_RUNTIME_ID_TO_COLLISION_INDEX = new int[javaBlockStateCount];
+
         Reflections ref = GeyserConnector.getInstance().useXmlReflections() ? FileUtils.getReflections("org.geysermc.connector.network.translators.world.block.entity")
                 : new Reflections("org.geysermc.connector.network.translators.world.block.entity");
 
@@ -155,7 +169,7 @@ public class BlockTranslator {
             // TODO fix this, (no block should have a null hardness)
             JsonNode hardnessNode = entry.getValue().get("block_hardness");
             if (hardnessNode != null) {
-                JAVA_RUNTIME_ID_TO_HARDNESS.put(javaRuntimeId, hardnessNode.doubleValue());
+                JAVA_RUNTIME_ID_TO_HARDNESS[javaRuntimeId] = hardnessNode.doubleValue();
             }
 
             try {
@@ -171,7 +185,7 @@ public class BlockTranslator {
 
             JsonNode collisionIndexNode = entry.getValue().get("collision_index");
             if (hardnessNode != null) {
-                JAVA_RUNTIME_ID_TO_COLLISION_INDEX.put(javaRuntimeId, collisionIndexNode.intValue());
+                JAVA_RUNTIME_ID_TO_COLLISION_INDEX[javaRuntimeId] = collisionIndexNode.intValue();
             }
 
             JAVA_ID_BLOCK_MAP.put(javaId, javaRuntimeId);
@@ -204,12 +218,12 @@ public class BlockTranslator {
 
             if (waterlogged) {
                 BEDROCK_TO_JAVA_BLOCK_MAP.putIfAbsent(bedrockRuntimeId | 1 << 31, javaRuntimeId);
-                WATERLOGGED.add(javaRuntimeId);
+                WATERLOGGED.set(javaRuntimeId);
             } else {
                 BEDROCK_TO_JAVA_BLOCK_MAP.putIfAbsent(bedrockRuntimeId, javaRuntimeId);
             }
 
-            JAVA_TO_BEDROCK_BLOCK_MAP.put(javaRuntimeId, bedrockRuntimeId);
+            JAVA_TO_BEDROCK_BLOCKS[javaRuntimeId] = bedrockRuntimeId;
 
             if (bedrockIdentifier.equals("minecraft:air")) {
                 airRuntimeId = bedrockRuntimeId;
@@ -235,6 +249,13 @@ public class BlockTranslator {
             }
         }
 
+        for (int javaState : BlockStateValues.getFlowerPotValues().keySet()) {
+            BEDROCK_ONLY_BLOCK_ENTITIES.set(javaState);
+        }
+        for (int javaState : BlockStateValues.getPistonValues().keySet()) {
+            BEDROCK_ONLY_BLOCK_ENTITIES.set(javaState);
+        }
+
         if (cobwebRuntimeId == -1) {
             throw new AssertionError("Unable to find cobwebs in palette");
         }
@@ -316,7 +337,10 @@ public class BlockTranslator {
     }
 
     public static int getBedrockBlockId(int state) {
-        return JAVA_TO_BEDROCK_BLOCK_MAP.get(state);
+        if (state < 0 || state >= JAVA_TO_BEDROCK_BLOCKS.length) {
+            return 0;
+        }
+        return JAVA_TO_BEDROCK_BLOCKS[state];
     }
 
     public static int getJavaBlockState(int bedrockId) {
@@ -352,7 +376,44 @@ public class BlockTranslator {
     }
 
     public static boolean isWaterlogged(int state) {
-        return WATERLOGGED.contains(state);
+        return state >= 0 && WATERLOGGED.get(state);
+    }
+
+    /**
+     * @param state the Java block state
+     * @return true if the block needs a block entity on Bedrock that Java doesn't send, such as flower pots and pistons
+     */
+    public static boolean hasBedrockOnlyBlockEntity(int state) {
+        return state >= 0 && BEDROCK_ONLY_BLOCK_ENTITIES.get(state);
+    }
+
+    /**
+     * @param state the Java block state
+     * @return the hardness of the block, or 0 if unknown
+     */
+    public static double getHardness(int state) {
+        if (state < 0 || state >= JAVA_RUNTIME_ID_TO_HARDNESS.length) {
+            return 0;
+        }
+        return JAVA_RUNTIME_ID_TO_HARDNESS[state];
+    }
+
+    /**
+     * @param state the Java block state
+     * @return the index of the collision data of the block in collision.json
+     */
+    public static int getCollisionIndex(int state) {
+        if (state < 0 || state >= JAVA_RUNTIME_ID_TO_COLLISION_INDEX.length) {
+            return 0;
+        }
+        return JAVA_RUNTIME_ID_TO_COLLISION_INDEX[state];
+    }
+
+    /**
+     * @return the amount of Java block states; every Java block state is lower than this
+     */
+    public static int getJavaBlockStateCount() {
+        return JAVA_TO_BEDROCK_BLOCKS.length;
     }
 
     public static BiMap<String, Integer> getJavaIdBlockMap() {
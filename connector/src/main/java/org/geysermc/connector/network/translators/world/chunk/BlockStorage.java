@@ -87,16 +87,37 @@ public class BlockStorage {
         palette.forEach((IntConsumer) id -> VarInts.writeInt(buffer, id));
     }
 
-    public int estimateNetworkSize() {
+    /**
+     * @return the exact amount of bytes that {@link #writeToNetwork(ByteBuf)} will write
+     */
+    public int getNetworkSize() {
         int size = 1; // Palette header
         size += this.bitArray.getWords().length * 4;
 
-        // We assume that none of the VarInts will be larger than 3 bytes
-        size += 3; // Palette size
-        size += this.palette.size() * 3;
+        size += getVarIntSize(palette.size());
+        for (int i = 0; i < palette.size(); i++) {
+            size += getVarIntSize(palette.getInt(i));
+        }
         return size;
     }
 
+    /**
+     * @return the size of a signed (zigzag-encoded) VarInt
+     */
+    private static int getVarIntSize(int value) {
+        int encoded = (value << 1) ^ (value >> 31);
+        if ((encoded & 0xFFFFFF80) == 0) {
+            return 1;
+        } else if ((encoded & 0xFFFFC000) == 0) {
+            return 2;
+        } else if ((encoded & 0xFFE00000) == 0) {
+            return 3;
+        } else if ((encoded & 0xF0000000) == 0) {
+            return 4;
+        }
+        return 5;
+    }
+
     private void onResize(BitArrayVersion version) {
         BitArray newBitArray = version.createArray(SIZE);
 
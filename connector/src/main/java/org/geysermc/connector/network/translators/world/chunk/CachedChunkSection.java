@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.BitStorage;
+import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.GlobalPalette;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.Palette;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * A compact copy of a Java chunk section, used by the chunk cache.
+ *
+ * Block states are stored as indexes into a palette, packed into longs the same way as Java does since 1.16
+ * (entries never span two longs). Sections made up of a single block state don't store any data and are shared
+ * between every column and session.
+ *
+ * Indexes use Java's YZX order.
+ *
+ * The palette, data array and bits per entry of a section never change. Blocks that fit the current palette are written
+ * in place; anything else creates a new section, so a reader never sees a palette that doesn't match the data.
+ * Writes still have to be guarded by the owning {@link CachedColumn}.
+ */
+public class CachedChunkSection {
+    private static final int SIZE = 4096;
+
+    /**
+     * The amount of bits used per entry once a section holds too many states for a palette
+     */
+    private static final int DIRECT_BITS = 16;
+
+    private static final int MAX_PALETTE_BITS = 8;
+
+    /**
+     * Shared sections that contain only one block state
+     */
+    private static final Int2ObjectMap<CachedChunkSection> UNIFORM_SECTIONS = Int2ObjectMaps.synchronize(new Int2ObjectOpenHashMap<>());
+
+    /**
+     * The Java block states of this section, or null if block states are stored directly
+     */
+    private final int[] palette;
+
+    /**
+     * Null if this section only contains {@code palette[0]}
+     */
+    private final long[] data;
+
+    private final int bitsPerEntry;
+
+    private CachedChunkSection(int[] palette, long[] data, int bitsPerEntry) {
+        this.palette = palette;
+        this.data = data;
+        this.bitsPerEntry = bitsPerEntry;
+    }
+
+    /**
+     * @param blockState the Java block state
+     * @return the shared section containing only the given block state
+     */
+    public static CachedChunkSection uniform(int blockState) {
+        CachedChunkSection section = UNIFORM_SECTIONS.get(blockState);
+        if (section == null) {
+            section = new CachedChunkSection(new int[] {blockState}, null, 0);
+            UNIFORM_SECTIONS.put(blockState, section);
+        }
+        return section;
+    }
+
+    /**
+     * Copy a Java section into the cache format
+     *
+     * @param chunk the Java section
+     * @return the cached section, or null if the section is empty
+     */
+    public static CachedChunkSection fromJava(Chunk chunk) {
+        if (chunk == null || chunk.isEmpty()) {
+            return null;
+        }
+
+        Palette javaPalette = chunk.getPalette();
+        BitStorage storage = chunk.getStorage();
+        long[] data = storage.getData();
+        int bits = storage.getBitsPerEntry();
+
+        if (javaPalette instanceof GlobalPalette) {
+            return new CachedChunkSection(null, data.clone(), bits);
+        }
+
+        if (javaPalette.size() == 1) {
+            return uniform(javaPalette.idToState(0));
+        }
+
+        // The palette can contain states that are no longer in use; check if there's only one in the data
+        int first = (int) (data[0] & ((1L << bits) - 1L));
+        if (isUniform(data, bits, first)) {
+            return uniform(javaPalette.idToState(first));
+        }
+
+        int[] palette = new int[javaPalette.size()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = javaPalette.idToState(i);
+        }
+        return new CachedChunkSection(palette, data.clone(), bits);
+    }
+
+    private static boolean isUniform(long[] data, int bits, int value) {
+        int valuesPerLong = 64 / bits;
+        long mask = (1L << bits) - 1L;
+        int index = 0;
+        for (long word : data) {
+            for (int i = 0; i < valuesPerLong && index < SIZE; i++, index++) {
+                if ((word & mask) != value) {
+                    return false;
+                }
+                word >>>= bits;
+            }
+        }
+        return true;
+    }
+
+    public static int index(int x, int y, int z) {
+        return y << 8 | z << 4 | x;
+    }
+
+    /**
+     * @param index the YZX index of the block
+     * @return the Java block state at the given index
+     */
+    public int get(int index) {
+        int value = data == null ? 0 : getValue(data, bitsPerEntry, index);
+        return palette == null ? value : palette[value];
+    }
+
+    /**
+     * Set a block in this section. Shared sections are never modified, and neither is the layout of a section; in both
+     * cases a new section is returned.
+     *
+     * @param index the YZX index of the block
+     * @param blockState the Java block state to set
+     * @return the section to keep in the cache, which might not be this section
+     */
+    public CachedChunkSection set(int index, int blockState) {
+        if (data == null) {
+            if (palette[0] == blockState) {
+                return this;
+            }
+            // Leave the shared section intact
+            CachedChunkSection section = new CachedChunkSection(new int[] {palette[0]}, new long[longsFor(1)], 1);
+            return section.set(index, blockState);
+        }
+
+        int value;
+        if (palette == null) {
+            value = blockState;
+        } else {
+            value = paletteIndexOf(blockState);
+            if (value == -1) {
+                value = palette.length;
+                int[] newPalette = Arrays.copyOf(palette, value + 1);
+                newPalette[value] = blockState;
+                CachedChunkSection section;
+                if (value < 1 << bitsPerEntry) {
+                    section = new CachedChunkSection(newPalette, data.clone(), bitsPerEntry);
+                } else if (bitsPerEntry < MAX_PALETTE_BITS) {
+                    section = resize(newPalette, bitsPerEntry + 1);
+                } else {
+                    // Too many states for a palette, store them directly instead
+                    section = resize(null, DIRECT_BITS);
+                    value = blockState;
+                }
+                setValue(section.data, section.bitsPerEntry, index, value);
+                return section;
+            }
+        }
+
+        setValue(data, bitsPerEntry, index, value);
+        return this;
+    }
+
+    /**
+     * @return a copy of this section that won't see later writes to this section
+     */
+    public CachedChunkSection copy() {
+        if (data == null) {
+            return this;
+        }
+        return new CachedChunkSection(palette, data.clone(), bitsPerEntry);
+    }
+
+    private int paletteIndexOf(int blockState) {
+        for (int i = 0; i < palette.length; i++) {
+            if (palette[i] == blockState) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private CachedChunkSection resize(int[] newPalette, int newBits) {
+        long[] newData = new long[longsFor(newBits)];
+        for (int i = 0; i < SIZE; i++) {
+            int value = getValue(data, bitsPerEntry, i);
+            setValue(newData, newBits, i, newPalette == null ? palette[value] : value);
+        }
+        return new CachedChunkSection(newPalette, newData, newBits);
+    }
+
+    /**
+     * Unpack every palette index of this section, in YZX order
+     *
+     * @param out an array of at least 4096 entries
+     */
+    public void unpack(int[] out) {
+        if (data == null) {
+            Arrays.fill(out, 0, SIZE, 0);
+            return;
+        }
+
+        int valuesPerLong = 64 / bitsPerEntry;
+        long mask = (1L << bitsPerEntry) - 1L;
+        int index = 0;
+        for (long word : data) {
+            for (int i = 0; i < valuesPerLong && index < SIZE; i++) {
+                out[index++] = (int) (word & mask);
+                word >>>= bitsPerEntry;
+            }
+        }
+    }
+
+    /**
+     * @return the Java block states that the values of {@link #unpack(int[])} point to, or null if the values are block states
+     */
+    public int[] getPalette() {
+        return palette;
+    }
+
+    /**
+     * @return the minimum amount of bits needed to store each value of {@link #unpack(int[])}
+     */
+    public int getBitsPerEntry() {
+        return bitsPerEntry;
+    }
+
+    /**
+     * @return if this section is shared and never modified
+     */
+    public boolean isShared() {
+        return data == null;
+    }
+
+    /**
+     * @return the approximate amount of heap used by this section, or 0 if it's shared
+     */
+    public int getMemoryUsage() {
+        if (data == null) {
+            return 0;
+        }
+        int size = 24; // Object header and fields
+        if (palette != null) {
+            size += 16 + palette.length * 4;
+        }
+        size += 16 + data.length * 8;
+        return size;
+    }
+
+    private static int longsFor(int bits) {
+        int valuesPerLong = 64 / bits;
+        return (SIZE + valuesPerLong - 1) / valuesPerLong;
+    }
+
+    private static int getValue(long[] data, int bits, int index) {
+        int valuesPerLong = 64 / bits;
+        int shift = (index % valuesPerLong) * bits;
+        return (int) ((data[index / valuesPerLong] >>> shift) & ((1L << bits) - 1L));
+    }
+
+    private static void setValue(long[] data, int bits, int index, int value) {
+        int valuesPerLong = 64 / bits;
+        int longIndex = index / valuesPerLong;
+        int shift = (index % valuesPerLong) * bits;
+        long mask = (1L << bits) - 1L;
+        data[longIndex] = data[longIndex] & ~(mask << shift) | ((value & mask) << shift);
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
+import com.github.steveice10.mc.protocol.data.game.chunk.Column;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import lombok.Getter;
+import org.geysermc.connector.network.translators.world.block.BlockTranslator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A column in the chunk cache. Unlike a {@link Column}, this only keeps what Geyser needs after translating a chunk:
+ * compact block data, biomes and the block entities needed to re-translate the column after a non-full chunk update.
+ *
+ * Columns are written to by the downstream thread but read from chunk translation workers and the Bedrock thread.
+ * Writes take an exclusive lock, while reads are optimistic and only fall back to a read lock if a write happened
+ * meanwhile.
+ */
+public class CachedColumn {
+    /**
+     * Rough size of a block entity tag, as they aren't worth measuring
+     */
+    private static final int BLOCK_ENTITY_SIZE = 256;
+
+    @Getter
+    private final int x;
+    @Getter
+    private final int z;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final CachedChunkSection[] sections;
+
+    @Getter
+    private volatile CompoundTag[] tileEntities;
+
+    /**
+     * Biomes are stored as bytes when every biome ID fits, which is always the case in vanilla
+     */
+    private byte[] biomes;
+    private int[] wideBiomes;
+
+    public CachedColumn(Column column) {
+        this.x = column.getX();
+        this.z = column.getZ();
+
+        Chunk[] chunks = column.getChunks();
+        this.sections = new CachedChunkSection[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            this.sections[i] = CachedChunkSection.fromJava(chunks[i]);
+        }
+
+        this.tileEntities = column.getTileEntities();
+        setBiomeData(column.getBiomeData());
+    }
+
+    /**
+     * Merge the sections of a non-full column into this column
+     *
+     * @param column the non-full column
+     * @return true if any section was replaced
+     */
+    public boolean merge(Column column) {
+        long stamp = lock.writeLock();
+        try {
+            Chunk[] chunks = column.getChunks();
+            boolean changed = false;
+            for (int i = 0; i < chunks.length; i++) {
+                if (chunks[i] != null) {
+                    sections[i] = CachedChunkSection.fromJava(chunks[i]);
+                    changed = true;
+                }
+            }
+
+            if (changed) {
+                // Replace the block entities of the sections that were sent
+                List<CompoundTag> mergedTileEntities = new ArrayList<>();
+                for (CompoundTag tag : tileEntities) {
+                    int sectionY = (int) tag.get("y").getValue() >> 4;
+                    if (sectionY < 0 || sectionY >= chunks.length || chunks[sectionY] == null) {
+                        mergedTileEntities.add(tag);
+                    }
+                }
+                for (CompoundTag tag : column.getTileEntities()) {
+                    mergedTileEntities.add(tag);
+                }
+                tileEntities = mergedTileEntities.toArray(new CompoundTag[0]);
+            }
+            return changed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the amount of sections in this column
+     */
+    public int getSectionCount() {
+        return sections.length;
+    }
+
+    /**
+     * @param x the X coordinate of the block, relative to the column
+     * @param y the Y coordinate of the block
+     * @param z the Z coordinate of the block, relative to the column
+     * @return the Java block state at the given position; air if it is outside of the column
+     */
+    public int getBlockState(int x, int y, int z) {
+        if (y < 0 || (y >> 4) >= sections.length) {
+            return BlockTranslator.JAVA_AIR_ID;
+        }
+
+        int index = CachedChunkSection.index(x, y & 0xF, z);
+        long stamp = lock.tryOptimisticRead();
+        // Sections never change layout, so reading one while it's being written can't fail; it just needs to be retried
+        int blockState = getBlockState(sections[y >> 4], index);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                blockState = getBlockState(sections[y >> 4], index);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return blockState;
+    }
+
+    private static int getBlockState(CachedChunkSection section, int index) {
+        return section == null ? BlockTranslator.JAVA_AIR_ID : section.get(index);
+    }
+
+    /**
+     * @param x the X coordinate of the block, relative to the column
+     * @param y the Y coordinate of the block
+     * @param z the Z coordinate of the block, relative to the column
+     * @param blockState the Java block state to set
+     * @return how much the memory usage of this column changed
+     */
+    public int setBlockState(int x, int y, int z, int blockState) {
+        if (y < 0 || (y >> 4) >= sections.length) {
+            return 0;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            CachedChunkSection section = sections[y >> 4];
+            if (section == null) {
+                if (blockState == BlockTranslator.JAVA_AIR_ID) {
+                    return 0;
+                }
+                // Empty sections are air
+                section = CachedChunkSection.uniform(BlockTranslator.JAVA_AIR_ID);
+            }
+
+            CachedChunkSection newSection = section.set(CachedChunkSection.index(x, y & 0xF, z), blockState);
+            sections[y >> 4] = newSection;
+            return newSection.getMemoryUsage() - section.getMemoryUsage();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @param sectionY the index of the section in this column
+     * @return a copy of the section that won't change while it is being used, or null if the section is empty
+     */
+    public CachedChunkSection getSection(int sectionY) {
+        long stamp = lock.tryOptimisticRead();
+        CachedChunkSection section = sections[sectionY];
+        CachedChunkSection copy = section == null ? null : section.copy();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                section = sections[sectionY];
+                copy = section == null ? null : section.copy();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * @return the Java biome data of this column, or null if this column was created from a non-full chunk
+     */
+    public int[] getBiomeData() {
+        if (biomes != null) {
+            int[] biomeData = new int[biomes.length];
+            for (int i = 0; i < biomes.length; i++) {
+                biomeData[i] = biomes[i] & 0xFF;
+            }
+            return biomeData;
+        }
+        return wideBiomes;
+    }
+
+    private void setBiomeData(int[] biomeData) {
+        if (biomeData == null) {
+            return;
+        }
+
+        byte[] biomes = new byte[biomeData.length];
+        for (int i = 0; i < biomeData.length; i++) {
+            if ((biomeData[i] & ~0xFF) != 0) {
+                this.wideBiomes = biomeData;
+                return;
+            }
+            biomes[i] = (byte) biomeData[i];
+        }
+        this.biomes = biomes;
+    }
+
+    /**
+     * @return the approximate amount of heap used by this column, not including shared sections
+     */
+    public long getMemoryUsage() {
+        long stamp = lock.readLock();
+        try {
+            long size = 48; // Object header and fields
+            size += 16 + sections.length * 4;
+            for (CachedChunkSection section : sections) {
+                if (section != null) {
+                    size += section.getMemoryUsage();
+                }
+            }
+            if (biomes != null) {
+                size += 16 + biomes.length;
+            } else if (wideBiomes != null) {
+                size += 16 + wideBiomes.length * 4;
+            }
+            size += 16 + tileEntities.length * (4 + BLOCK_ENTITY_SIZE);
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.nukkitx.protocol.bedrock.packet.ClientCacheMissResponsePacket;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.geysermc.connector.GeyserConnector;
+import org.geysermc.connector.network.session.GeyserSession;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side store for the Bedrock client blob cache.
+ *
+ * Clients that support the blob cache only receive the hashes of chunk sections and biomes, and request the
+ * blobs they don't have yet. Every blob that is referenced by a sent chunk is kept here so those requests can be
+ * answered, and since the id is a hash of the content, identical blobs are shared between all sessions.
+ */
+public class ChunkBlobCache {
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+    /**
+     * How many bytes of blobs a single session keeps for its client before the oldest are let go
+     */
+    private static final long MAX_PENDING_BYTES = 16L * 1024 * 1024;
+    /**
+     * How long a session keeps a blob for a client that doesn't report its status. Clients answer within a few ticks.
+     */
+    private static final long PENDING_EXPIRY_SECONDS = 30;
+
+    /**
+     * Null if the blob cache has been disabled in the config
+     */
+    private static final Cache<Long, byte[]> BLOBS;
+
+    private ChunkBlobCache() {
+    }
+
+    public static void init() {
+        // no-op
+    }
+
+    static {
+        int maxSize = GeyserConnector.getInstance().getConfig().getChunkBlobCacheSize();
+        if (maxSize > 0) {
+            BLOBS = CacheBuilder.newBuilder()
+                    .maximumWeight(maxSize * 1024L * 1024L)
+                    .weigher((Long id, byte[] blob) -> blob.length)
+                    .build();
+        } else {
+            BLOBS = null;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return BLOBS != null;
+    }
+
+    /**
+     * @return the store for the blobs sent to one session, bounded so a client that never reports its status
+     * can't make it grow without limit
+     */
+    public static Cache<Long, byte[]> createPendingBlobs() {
+        return CacheBuilder.newBuilder()
+                .maximumWeight(MAX_PENDING_BYTES)
+                .weigher((Long id, byte[] blob) -> blob.length)
+                .expireAfterWrite(PENDING_EXPIRY_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Makes sure every blob of the payload can be served to the client until it has acknowledged or requested it
+     *
+     * @param session the session the payload is about to be sent to using the blob cache
+     * @param payload the payload that is about to be sent
+     * @return the blob ids of the payload
+     */
+    public static long[] storeBlobs(GeyserSession session, ChunkPayload payload) {
+        long[] blobIds = payload.getBlobIds();
+        for (int i = 0; i < blobIds.length; i++) {
+            byte[] blob = BLOBS.getIfPresent(blobIds[i]);
+            if (blob == null) {
+                blob = payload.getBlob(i);
+                BLOBS.put(blobIds[i], blob);
+            }
+            // The shared cache is bounded, so hold on to the blob until the client has it
+            session.getPendingBlobs().put(blobIds[i], blob);
+        }
+        return blobIds;
+    }
+
+    /**
+     * Sends the blobs that the client reported as missing, and forgets the blobs that it now has
+     *
+     * @param session the session that reported the status of its blobs
+     * @param acknowledgedBlobIds the ids of the blobs that the client already has
+     * @param missingBlobIds the ids of the blobs that the client does not have
+     */
+    public static void handleBlobStatus(GeyserSession session, LongList acknowledgedBlobIds, LongList missingBlobIds) {
+        Cache<Long, byte[]> pendingBlobs = session.getPendingBlobs();
+        for (int i = 0; i < acknowledgedBlobIds.size(); i++) {
+            pendingBlobs.invalidate(acknowledgedBlobIds.getLong(i));
+        }
+
+        if (missingBlobIds.isEmpty()) {
+            return;
+        }
+
+        ClientCacheMissResponsePacket responsePacket = new ClientCacheMissResponsePacket();
+        for (int i = 0; i < missingBlobIds.size(); i++) {
+            long blobId = missingBlobIds.getLong(i);
+            byte[] blob = pendingBlobs.asMap().remove(blobId);
+            if (blob == null) {
+                blob = BLOBS.getIfPresent(blobId);
+            }
+            if (blob != null) {
+                responsePacket.getBlobs().put(blobId, blob);
+            } else {
+                // The client asked for a blob it was never sent, or took too long to ask for it
+                session.getConnector().getLogger().debug("Client requested unknown chunk blob " + blobId);
+            }
+        }
+        session.sendUpstreamPacket(responsePacket);
+    }
+
+    /**
+     * Computes the xxHash64 (seed 0) of part of an array, which is what Bedrock uses to identify blobs.
+     *
+     * @param data the array containing the blob
+     * @param offset the start of the blob
+     * @param length the length of the blob
+     * @return the blob id
+     */
+    public static long hash(byte[] data, int offset, int length) {
+        int end = offset + length;
+        long hash;
+
+        if (length >= 32) {
+            long v1 = PRIME_1 + PRIME_2;
+            long v2 = PRIME_2;
+            long v3 = 0;
+            long v4 = -PRIME_1;
+            int limit = end - 32;
+            do {
+                v1 = round(v1, readLongLE(data, offset));
+                v2 = round(v2, readLongLE(data, offset + 8));
+                v3 = round(v3, readLongLE(data, offset + 16));
+                v4 = round(v4, readLongLE(data, offset + 24));
+                offset += 32;
+            } while (offset <= limit);
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = PRIME_5;
+        }
+
+        hash += length;
+
+        while (offset + 8 <= end) {
+            hash ^= round(0, readLongLE(data, offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+            offset += 8;
+        }
+
+        if (offset + 4 <= end) {
+            hash ^= (readIntLE(data, offset) & 0xFFFFFFFFL) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            offset += 4;
+        }
+
+        while (offset < end) {
+            hash ^= (data[offset] & 0xFF) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+            offset++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME_1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME_1 + PRIME_4;
+    }
+
+    private static long readLongLE(byte[] data, int offset) {
+        return (data[offset] & 0xFFL)
+                | (data[offset + 1] & 0xFFL) << 8
+                | (data[offset + 2] & 0xFFL) << 16
+                | (data[offset + 3] & 0xFFL) << 24
+                | (data[offset + 4] & 0xFFL) << 32
+                | (data[offset + 5] & 0xFFL) << 40
+                | (data[offset + 6] & 0xFFL) << 48
+                | (data[offset + 7] & 0xFFL) << 56;
+    }
+
+    private static int readIntLE(byte[] data, int offset) {
+        return (data[offset] & 0xFF)
+                | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16
+                | (data[offset + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * An encoded Bedrock chunk, ready to be sent in a {@link com.nukkitx.protocol.bedrock.packet.LevelChunkPacket}.
+ * Instances may be shared between sessions and must not be modified.
+ */
+@Getter
+public final class ChunkPayload {
+    private final int subChunksLength;
+
+    /**
+     * The full payload, used when the client does not support the blob cache
+     */
+    private final byte[] data;
+
+    /**
+     * The start offset in {@link #data} of each sub chunk, followed by the offset of the biomes and the offset of
+     * the remaining (non-blob) data
+     */
+    private final int[] blobOffsets;
+
+    /**
+     * Lazily computed hashes of every sub chunk followed by the biomes
+     */
+    private volatile long[] blobIds;
+
+    /**
+     * Lazily computed copy of the data following the biomes
+     */
+    private volatile byte[] nonBlobData;
+
+    public ChunkPayload(int subChunksLength, byte[] data, int[] blobOffsets) {
+        this.subChunksLength = subChunksLength;
+        this.data = data;
+        this.blobOffsets = blobOffsets;
+    }
+
+    /**
+     * @return the blob ids of every sub chunk, followed by the id of the biome blob
+     */
+    public long[] getBlobIds() {
+        long[] blobIds = this.blobIds;
+        if (blobIds == null) {
+            blobIds = new long[blobOffsets.length - 1];
+            for (int i = 0; i < blobIds.length; i++) {
+                blobIds[i] = ChunkBlobCache.hash(data, blobOffsets[i], blobOffsets[i + 1] - blobOffsets[i]);
+            }
+            this.blobIds = blobIds;
+        }
+        return blobIds;
+    }
+
+    /**
+     * @param index the index of the blob, matching {@link #getBlobIds()}
+     * @return a copy of the blob's data
+     */
+    public byte[] getBlob(int index) {
+        return Arrays.copyOfRange(data, blobOffsets[index], blobOffsets[index + 1]);
+    }
+
+    /**
+     * @return the data that is still sent in the packet itself when the blob cache is used
+     */
+    public byte[] getNonBlobData() {
+        byte[] nonBlobData = this.nonBlobData;
+        if (nonBlobData == null) {
+            nonBlobData = Arrays.copyOfRange(data, blobOffsets[blobOffsets.length - 1], data.length);
+            this.nonBlobData = nonBlobData;
+        }
+        return nonBlobData;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.BitStorage;
+import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
+import com.github.steveice10.mc.protocol.data.game.chunk.Column;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.GlobalPalette;
+import com.github.steveice10.mc.protocol.data.game.chunk.palette.Palette;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.ListTag;
+import com.github.steveice10.opennbt.tag.builtin.Tag;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.Data;
+import org.geysermc.connector.GeyserConnector;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A connector-wide cache of encoded Bedrock chunk payloads.
+ *
+ * Columns are keyed by a content hash of their Java sections, biomes and block entities, so when several
+ * sessions receive an identical column (for example, the spawn area of a lobby) it is only translated and
+ * encoded once. The payload is then shared between every {@link com.nukkitx.protocol.bedrock.packet.LevelChunkPacket}
+ * that sends it, and must therefore never be modified.
+ */
+public class ChunkPayloadCache {
+
+    /**
+     * Null if the cache has been disabled in the config
+     */
+    private static final Cache<ColumnKey, ChunkPayload> PAYLOADS;
+
+    private ChunkPayloadCache() {
+    }
+
+    public static void init() {
+        // no-op
+    }
+
+    static {
+        int maxSize = GeyserConnector.getInstance().getConfig().getChunkPayloadCacheSize();
+        if (maxSize > 0) {
+            PAYLOADS = CacheBuilder.newBuilder()
+                    .maximumWeight(maxSize * 1024L * 1024L)
+                    .weigher((ColumnKey key, ChunkPayload payload) -> payload.getData().length)
+                    .recordStats()
+                    .build();
+        } else {
+            PAYLOADS = null;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return PAYLOADS != null;
+    }
+
+    /**
+     * Compute the cache key of a column. Only full columns should be looked up, as non-full columns can depend
+     * on data that isn't part of the column itself.
+     *
+     * @param column the Java column to hash
+     * @return the key to use with {@link #get(ColumnKey)} and {@link #put(ColumnKey, ChunkPayload)}
+     */
+    public static ColumnKey computeKey(Column column) {
+        Hasher hasher = new Hasher();
+
+        Chunk[] chunks = column.getChunks();
+        hasher.put(chunks.length);
+        for (Chunk chunk : chunks) {
+            if (chunk == null) {
+                hasher.put(-1);
+                continue;
+            }
+
+            Palette palette = chunk.getPalette();
+            if (palette instanceof GlobalPalette) {
+                hasher.put(-2);
+            } else {
+                hasher.put(palette.size());
+                for (int i = 0; i < palette.size(); i++) {
+                    hasher.put(palette.idToState(i));
+                }
+            }
+
+            BitStorage storage = chunk.getStorage();
+            hasher.put(storage.getBitsPerEntry());
+            for (long word : storage.getData()) {
+                hasher.put(word);
+            }
+        }
+
+        int[] biomeData = column.getBiomeData();
+        if (biomeData == null) {
+            hasher.put(-1);
+        } else {
+            hasher.put(biomeData.length);
+            for (int biome : biomeData) {
+                hasher.put(biome);
+            }
+        }
+
+        CompoundTag[] tileEntities = column.getTileEntities();
+        hasher.put(tileEntities.length);
+        for (CompoundTag tag : tileEntities) {
+            hashTag(hasher, tag);
+        }
+
+        return new ColumnKey(column.getX(), column.getZ(), hasher.h1, hasher.h2);
+    }
+
+    public static ChunkPayload get(ColumnKey key) {
+        return PAYLOADS.getIfPresent(key);
+    }
+
+    public static void put(ColumnKey key, ChunkPayload payload) {
+        PAYLOADS.put(key, payload);
+    }
+
+    /**
+     * @return the hit/miss statistics of the cache, or {@link CacheStats} with all zeros if the cache is disabled
+     */
+    public static CacheStats getStats() {
+        return PAYLOADS != null ? PAYLOADS.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    private static void hashTag(Hasher hasher, Tag tag) {
+        // Hash the full contents of the tag; sharing a payload over a hash collision would show another column's
+        // signs, banners or skulls
+        hasher.put(tag.getName());
+        if (tag instanceof CompoundTag || tag instanceof ListTag) {
+            hasher.put(tag instanceof CompoundTag ? -3 : -4); // Start of children
+            for (Tag child : (Iterable<Tag>) tag) {
+                hashTag(hasher, child);
+            }
+            hasher.put(-5); // End of children
+            return;
+        }
+
+        Object value = tag.getValue();
+        if (value instanceof byte[]) {
+            hasher.put(-6);
+            hasher.put((byte[]) value);
+        } else if (value instanceof int[]) {
+            int[] ints = (int[]) value;
+            hasher.put(-7);
+            hasher.put(ints.length);
+            for (int i : ints) {
+                hasher.put(i);
+            }
+        } else if (value instanceof long[]) {
+            long[] longs = (long[]) value;
+            hasher.put(-8);
+            hasher.put(longs.length);
+            for (long l : longs) {
+                hasher.put(l);
+            }
+        } else if (value instanceof String) {
+            hasher.put(-9);
+            hasher.put((String) value);
+        } else if (value instanceof Float || value instanceof Double) {
+            hasher.put(-10);
+            hasher.put(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Number) {
+            hasher.put(-11);
+            hasher.put(((Number) value).longValue());
+        } else if (value != null) {
+            // No other tag types exist, but don't let an unknown one be mistaken for a different tag
+            hasher.put(-12);
+            hasher.put(value.toString());
+        }
+    }
+
+    /**
+     * Two independent 64-bit lanes, giving a 128-bit hash that is practically collision-free for chunk contents, as
+     * long as every value is fed in full rather than as a 32-bit hash code
+     */
+    private static final class Hasher {
+        private long h1 = 0x9E3779B97F4A7C15L;
+        private long h2 = 0xC2B2AE3D27D4EB4FL;
+
+        private void put(long value) {
+            h1 = Long.rotateLeft(h1 ^ (value * 0x87C37B91114253D5L), 31) * 0x4CF5AD432745937FL + 0x52DCE729L;
+            h2 = Long.rotateLeft(h2 ^ (value * 0xFF51AFD7ED558CCDL), 27) * 0xC4CEB9FE1A85EC53L + 0x38495AB5L;
+        }
+
+        private void put(byte[] bytes) {
+            put(bytes.length);
+            int i = 0;
+            for (; i + 8 <= bytes.length; i += 8) {
+                long word = 0;
+                for (int j = 0; j < 8; j++) {
+                    word = (word << 8) | (bytes[i + j] & 0xFF);
+                }
+                put(word);
+            }
+            long word = 0;
+            for (; i < bytes.length; i++) {
+                word = (word << 8) | (bytes[i] & 0xFF);
+            }
+            put(word);
+        }
+
+        private void put(String value) {
+            put(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Data
+    public static final class ColumnKey {
+        private final int x;
+        private final int z;
+        private final long hash1;
+        private final long hash2;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import lombok.Getter;
+import org.geysermc.connector.GeyserConnector;
+import org.geysermc.connector.utils.Timings;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The thread pool that chunks are translated on, kept apart from the general thread pool so a burst of chunks
+ * (such as a mass join) can't delay every other scheduled task. Sessions submit their chunks through their own
+ * {@link ChunkTranslationQueue}, which keeps them in order.
+ */
+public class ChunkTranslationExecutor {
+    /**
+     * How many chunks a session may translate before giving other sessions a turn
+     */
+    static final int BATCH_SIZE = 8;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * The amount of pending chunks per session past which full chunks are translated from the chunk cache instead of
+     * being kept in the queue
+     */
+    @Getter
+    private final int maxQueuedPerSession;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    /**
+     * The time spent translating chunks on this pool. The chunk packet translators only hand chunks over to it,
+     * so their own timings don't include the translation.
+     */
+    @Getter
+    private final Timings timings = new Timings();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public ChunkTranslationExecutor(int threads, int maxQueuedPerSession) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("Geyser Chunk Translation Thread #" + threadCount.incrementAndGet());
+            return thread;
+        }, null, true);
+        this.maxQueuedPerSession = maxQueuedPerSession;
+    }
+
+    void execute(ChunkTranslationQueue queue) {
+        pool.execute(queue);
+    }
+
+    void runTask(Callable<?> task) {
+        queued.decrementAndGet();
+        long start = System.nanoTime();
+        try {
+            task.call();
+        } catch (Throwable t) {
+            timings.recordException();
+            GeyserConnector.getInstance().getLogger().error("Error while translating chunk", t);
+        } finally {
+            timings.record(System.nanoTime() - start);
+            completed.increment();
+        }
+    }
+
+    void onSubmitted() {
+        submitted.increment();
+        queued.incrementAndGet();
+    }
+
+    void onSuperseded() {
+        superseded.increment();
+        queued.decrementAndGet();
+    }
+
+    void onShed(int count) {
+        shed.add(count);
+        queued.addAndGet(-count);
+    }
+
+    void onDeferred() {
+        deferred.increment();
+    }
+
+    void onStale() {
+        stale.increment();
+    }
+
+    /**
+     * @return the amount of chunks submitted for translation
+     */
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    /**
+     * @return the amount of chunks that have been translated
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * @return the amount of chunks that were not translated because a newer version of the same column was received
+     */
+    public long getSupersededCount() {
+        return superseded.sum();
+    }
+
+    /**
+     * @return the amount of chunks that were dropped because they were unloaded or the session disconnected
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    /**
+     * @return the amount of chunks that were left to be translated from the chunk cache because the session's queue was full
+     */
+    public long getDeferredCount() {
+        return deferred.sum();
+    }
+
+    /**
+     * @return the amount of translated chunks that weren't sent because their column changed during the translation
+     */
+    public long getStaleCount() {
+        return stale.sum();
+    }
+
+    /**
+     * @return the amount of chunks currently waiting to be translated, across all sessions
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import lombok.RequiredArgsConstructor;
+import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.utils.ChunkUtils;
+import org.geysermc.connector.utils.MathUtils;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Translates the chunks of a single session one at a time, in the order they were received, on the
+ * {@link ChunkTranslationExecutor}. If a column is received again before its previous version was translated,
+ * only the newest version is translated.
+ * <p>
+ * Every column has a version that changes whenever it is submitted, cancelled or sent again from somewhere else.
+ * A translation is only sent if the version of its column didn't change while it was running, so a translation
+ * that was already running can never overwrite newer data.
+ */
+public class ChunkTranslationQueue implements Runnable {
+    private final GeyserSession session;
+    private final ChunkTranslationExecutor executor;
+
+    /**
+     * Pending translations by chunk position, in the order they will be run in. Guarded by this queue
+     */
+    private final Long2ObjectLinkedOpenHashMap<PendingTranslation> pending = new Long2ObjectLinkedOpenHashMap<>();
+
+    /**
+     * The latest version of every column with a pending or running translation. Guarded by this queue
+     */
+    private final Long2IntOpenHashMap versions = new Long2IntOpenHashMap();
+
+    /**
+     * The version given to the next column change; never reused, so a removed column can't match an old translation.
+     * Guarded by this queue
+     */
+    private int nextVersion = 1;
+
+    /**
+     * If this queue is currently scheduled on the executor. Guarded by this queue
+     */
+    private boolean scheduled = false;
+
+    public ChunkTranslationQueue(GeyserSession session) {
+        this.session = session;
+        this.executor = session.getConnector().getChunkTranslationExecutor();
+    }
+
+    /**
+     * Queue the translation of a column.
+     * <p>
+     * A non-full chunk never replaces a pending full chunk of the same column: both are merged into a translation of
+     * the whole cached column instead. If the full chunk couldn't be cached, the newer chunk is translated on its own,
+     * as the client would only keep that one anyway.
+     * <p>
+     * Once the queue is over its limit, full chunks of cached columns are deferred to the cache the same way, so the
+     * queue doesn't hold on to their data. Nothing is ever dropped to make room.
+     * <p>
+     * Without a chunk cache nothing can be deferred, but the queue still can't grow without bound: it holds at most one
+     * translation per column, and columns leave it when the server unloads them ({@link #cancel(int, int)}) or the
+     * player changes dimension ({@link #clear()}). It is therefore limited by the columns the server has loaded for the
+     * player, which its view distance bounds.
+     *
+     * @param chunkX the X coordinate of the column
+     * @param chunkZ the Z coordinate of the column
+     * @param fullChunk if the column received from the server is a full chunk
+     * @param translation translates the column, returning null if there is nothing to send
+     */
+    public void submit(int chunkX, int chunkZ, boolean fullChunk, Callable<ChunkPayload> translation) {
+        long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
+        boolean cached = session.getChunkCache().getChunk(chunkX, chunkZ) != null;
+        executor.onSubmitted();
+        synchronized (this) {
+            PendingTranslation previous = pending.remove(chunkPosition);
+            if (previous != null) {
+                // The newer task will translate the latest state of the column
+                executor.onSuperseded();
+                if (previous.fullChunk && previous.cached && !fullChunk) {
+                    // The cache contains both the full chunk and the sections that were just received
+                    fullChunk = true;
+                    translation = () -> ChunkUtils.translateCachedColumn(session, chunkX, chunkZ);
+                }
+            } else if (fullChunk && cached && pending.size() >= executor.getMaxQueuedPerSession()) {
+                // Translate from the cache once it's this column's turn, instead of keeping the received column around
+                translation = () -> ChunkUtils.translateCachedColumn(session, chunkX, chunkZ);
+                executor.onDeferred();
+            }
+
+            int version = nextVersion++;
+            versions.put(chunkPosition, version);
+            pending.put(chunkPosition, new PendingTranslation(chunkX, chunkZ, version, fullChunk, cached, translation));
+
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        executor.execute(this);
+    }
+
+    /**
+     * Drop the pending translation of a column, if there is one, and make sure a translation that is already running
+     * for it isn't sent
+     *
+     * @param chunkX the X coordinate of the column
+     * @param chunkZ the Z coordinate of the column
+     */
+    public void cancel(int chunkX, int chunkZ) {
+        long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
+        synchronized (this) {
+            versions.remove(chunkPosition);
+            if (pending.remove(chunkPosition) != null) {
+                executor.onShed(1);
+            }
+        }
+    }
+
+    /**
+     * Send a column that was translated outside of this queue, such as a column that is sent again from the chunk
+     * cache. Any translation of the column that is pending or already running is discarded, as it can't be newer.
+     *
+     * @param chunkX the X coordinate of the column
+     * @param chunkZ the Z coordinate of the column
+     * @param translation translates the column, returning null if there is nothing to send
+     */
+    public void sendNow(int chunkX, int chunkZ, Callable<ChunkPayload> translation) throws Exception {
+        long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
+        int version;
+        synchronized (this) {
+            if (pending.remove(chunkPosition) != null) {
+                executor.onSuperseded();
+            }
+            version = nextVersion++;
+            versions.put(chunkPosition, version);
+        }
+
+        ChunkPayload payload = translation.call();
+        if (payload != null) {
+            sendIfCurrent(chunkX, chunkZ, version, payload);
+        }
+    }
+
+    /**
+     * Drop every pending translation. Translations that are already running aren't sent either: every version is
+     * forgotten, so none of them is current anymore, and versions are never reused.
+     */
+    public void clear() {
+        synchronized (this) {
+            executor.onShed(pending.size());
+            pending.clear();
+            versions.clear();
+        }
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < ChunkTranslationExecutor.BATCH_SIZE; i++) {
+            PendingTranslation task;
+            synchronized (this) {
+                if (session.isClosed()) {
+                    executor.onShed(pending.size());
+                    pending.clear();
+                    versions.clear();
+                }
+                if (pending.isEmpty()) {
+                    scheduled = false;
+                    return;
+                }
+                task = pending.removeFirst();
+            }
+            executor.runTask(() -> {
+                ChunkPayload payload = task.translation.call();
+                if (payload != null) {
+                    sendIfCurrent(task.chunkX, task.chunkZ, task.version, payload);
+                }
+                return null;
+            });
+        }
+
+        // Let other sessions have their turn before continuing
+        executor.execute(this);
+    }
+
+    /**
+     * Send a translated column, unless the column changed since its translation started
+     */
+    private void sendIfCurrent(int chunkX, int chunkZ, int version, ChunkPayload payload) {
+        long chunkPosition = MathUtils.chunkPositionToLong(chunkX, chunkZ);
+        // Sent while holding the lock, so a newer version can't be sent in between the check and this one
+        synchronized (this) {
+            if (versions.get(chunkPosition) != version) {
+                executor.onStale();
+                return;
+            }
+            versions.remove(chunkPosition);
+            ChunkUtils.sendPayload(session, chunkX, chunkZ, payload);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingTranslation {
+        private final int chunkX;
+        private final int chunkZ;
+        private final int version;
+        private final boolean fullChunk;
+        /**
+         * If the column was in the chunk cache when it was submitted
+         */
+        private final boolean cached;
+        private final Callable<ChunkPayload> translation;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.BitStorage;
+import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArray;
+
+/**
+ * Converts whole sections between the Java and Bedrock storage formats a word at a time, rather than reading and
+ * writing every block separately.
+ */
+public class SectionTranscoder {
+
+    private SectionTranscoder() {
+    }
+
+    /**
+     * Swaps the X and Y nibbles of a section index. As this is its own inverse, it also converts XZY to YZX.
+     */
+    public static int indexYZXtoXZY(int yzx) {
+        return (yzx >> 8) | (yzx & 0x0F0) | ((yzx & 0x00F) << 8);
+    }
+
+    /**
+     * Unpacks every entry of a Java section's storage into the given array, keeping the YZX order.
+     * Since 1.16, entries never span across two longs.
+     *
+     * @param storage the Java storage to read
+     * @param out an array of at least {@link BlockStorage#SIZE} entries
+     */
+    public static void unpackJavaStorage(BitStorage storage, int[] out) {
+        long[] data = storage.getData();
+        int bits = storage.getBitsPerEntry();
+        int valuesPerLong = 64 / bits;
+        long mask = (1L << bits) - 1L;
+
+        int index = 0;
+        for (long word : data) {
+            for (int i = 0; i < valuesPerLong && index < BlockStorage.SIZE; i++) {
+                out[index++] = (int) (word & mask);
+                word >>>= bits;
+            }
+        }
+    }
+
+    /**
+     * Packs YZX-ordered values into a Bedrock bit array in XZY order, building each word in a register
+     * instead of setting every entry separately.
+     *
+     * @param yzxValues the values to write, in YZX order
+     * @param bitArray the Bedrock bit array to fill. Every value must fit in its version
+     */
+    public static void packBedrockStorage(int[] yzxValues, BitArray bitArray) {
+        int[] words = bitArray.getWords();
+        int bits = bitArray.getVersion().getId();
+
+        int xzy = 0;
+        for (int i = 0; i < words.length; i++) {
+            int word = 0;
+            // Padded versions leave the remaining top bits of each word unused
+            for (int shift = 0; shift + bits <= 32 && xzy < BlockStorage.SIZE; shift += bits) {
+                word |= yzxValues[indexYZXtoXZY(xzy++)] << shift;
+            }
+            words[i] = word;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.scheduler;
+
+import lombok.Getter;
+import org.geysermc.connector.GeyserLogger;
+import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.utils.Timings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the short, recurring work of every session - scoreboard updates, cooldown indicators, idle movement - on
+ * Minecraft ticks.
+ *
+ * Tasks are kept in a hashed timer wheel: scheduling and cancelling are constant time, and only the tasks due on the
+ * current tick are looked at. The wheel is turned by a single tick thread, which hands the tasks of a session over to
+ * that session's own event loop ({@link GeyserSession#getEventLoop()}), so sessions don't wait on each other and their
+ * tasks run on the same thread as their packet translation. Connector-wide tasks run on the tick thread itself. Tasks must not block.
+ */
+public class TickScheduler {
+    public static final int TICK_MILLIS = 50;
+
+    /**
+     * The amount of buckets in the wheel. Must be a power of two; a task further away than this many ticks waits for
+     * more than one turn of the wheel.
+     */
+    private static final int WHEEL_SIZE = 512;
+
+    private final GeyserLogger logger;
+    private final ScheduledExecutorService tickThread;
+
+    /**
+     * Tasks scheduled since the last tick, waiting to be put in the wheel by the tick thread
+     */
+    private final Queue<TickTask> newTasks = new ConcurrentLinkedQueue<>();
+    private final TickTask[] wheel = new TickTask[WHEEL_SIZE];
+    private long currentTick = 0;
+
+    private final Map<String, Timings> timings = new ConcurrentHashMap<>();
+    /**
+     * Ticks that took longer than {@link #TICK_MILLIS} to run
+     */
+    private final LongAdder overloadedTicks = new LongAdder();
+    /**
+     * Runs of session tasks that were skipped because the previous run was still waiting on the session's event loop
+     */
+    private final LongAdder skippedRuns = new LongAdder();
+    @Getter
+    private volatile int scheduledTasks = 0;
+
+    public TickScheduler(GeyserLogger logger) {
+        this.logger = logger;
+        this.tickThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Geyser Tick Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.tickThread.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a task once, after the given amount of ticks
+     *
+     * @param session the session the task belongs to, or null. The task won't run once the session is closed
+     * @param name the name the time spent running this task is recorded under
+     * @param task the task to run
+     * @param delayTicks the amount of ticks to wait; at least 1
+     * @return the scheduled task, which can be cancelled
+     */
+    public TickTask schedule(GeyserSession session, String name, Runnable task, int delayTicks) {
+        return scheduleRepeating(session, name, task, delayTicks, 0);
+    }
+
+    /**
+     * Run a task every given amount of ticks, until it is cancelled or its session is closed
+     *
+     * @param session the session the task belongs to, or null. The task won't run once the session is closed
+     * @param name the name the time spent running this task is recorded under
+     * @param task the task to run
+     * @param delayTicks the amount of ticks to wait before the first run; at least 1
+     * @param periodTicks the amount of ticks between runs, or 0 to only run once
+     * @return the scheduled task, which can be cancelled
+     */
+    public TickTask scheduleRepeating(GeyserSession session, String name, Runnable task, int delayTicks, int periodTicks) {
+        TickTask tickTask = new TickTask(name, session, task, periodTicks, timings.computeIfAbsent(name, key -> new Timings()));
+        // The task is put in the wheel at the start of the next tick, which already counts as the first tick waited
+        tickTask.deadline = Math.max(delayTicks, 1) - 1;
+        newTasks.add(tickTask);
+        return tickTask;
+    }
+
+    private void tick() {
+        long startTime = System.nanoTime();
+
+        TickTask newTask;
+        while ((newTask = newTasks.poll()) != null) {
+            newTask.deadline += currentTick;
+            insert(newTask);
+        }
+
+        int bucket = (int) (currentTick & (WHEEL_SIZE - 1));
+        TickTask task = wheel[bucket];
+        TickTask remaining = null;
+        List<TickTask> repeating = null;
+        wheel[bucket] = null;
+        while (task != null) {
+            TickTask next = task.next;
+            if (task.isCancelled()) {
+                scheduledTasks--;
+            } else if (task.deadline > currentTick) {
+                // Due on a later turn of the wheel
+                task.next = remaining;
+                remaining = task;
+            } else {
+                dispatch(task);
+                if (task.getPeriod() > 0 && !task.isCancelled()) {
+                    if (repeating == null) {
+                        repeating = new ArrayList<>();
+                    }
+                    repeating.add(task);
+                } else {
+                    scheduledTasks--;
+                }
+            }
+            task = next;
+        }
+        wheel[bucket] = remaining;
+
+        if (repeating != null) {
+            for (TickTask repeatingTask : repeating) {
+                repeatingTask.deadline = currentTick + repeatingTask.getPeriod();
+                scheduledTasks--; // Counted again when inserted
+                insert(repeatingTask);
+            }
+        }
+
+        currentTick++;
+        if (System.nanoTime() - startTime > TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS)) {
+            overloadedTicks.increment();
+        }
+    }
+
+    private void insert(TickTask task) {
+        int bucket = (int) (task.deadline & (WHEEL_SIZE - 1));
+        task.next = wheel[bucket];
+        wheel[bucket] = task;
+        scheduledTasks++;
+    }
+
+    /**
+     * Run a task on the event loop of its session, or right away if it doesn't belong to one
+     */
+    private void dispatch(TickTask task) {
+        GeyserSession session = task.getSession();
+        if (session == null) {
+            run(task);
+            return;
+        }
+
+        if (task.running) {
+            // The event loop of the session hasn't caught up with the previous run yet; skip this one
+            skippedRuns.increment();
+            return;
+        }
+        task.running = true;
+        try {
+            session.getEventLoop().execute(() -> {
+                try {
+                    if (!task.isCancelled()) {
+                        run(task);
+                    }
+                } finally {
+                    task.running = false;
+                }
+            });
+        } catch (Throwable t) {
+            // Such as a RejectedExecutionException from a loop that is shutting down; don't let it stop the wheel
+            task.running = false;
+            logger.error("Could not hand tick task " + task.getName() + " to its session", t);
+        }
+    }
+
+    private void run(TickTask task) {
+        long startTime = System.nanoTime();
+        try {
+            task.run();
+        } catch (Throwable t) {
+            task.getTimings().recordException();
+            logger.error("Error while running tick task " + task.getName(), t);
+        }
+        task.getTimings().record(System.nanoTime() - startTime);
+    }
+
+    /**
+     * @return the time spent running tasks, by task name
+     */
+    public Map<String, Timings> getTimings() {
+        return Collections.unmodifiableMap(timings);
+    }
+
+    /**
+     * @return the amount of ticks that took longer than {@link #TICK_MILLIS} to run
+     */
+    public long getOverloadedTicks() {
+        return overloadedTicks.sum();
+    }
+
+    /**
+     * @return the amount of session task runs that were skipped because their session's event loop was behind
+     */
+    public long getSkippedRuns() {
+        return skippedRuns.sum();
+    }
+
+    public void shutdown() {
+        tickThread.shutdown();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.scheduler;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.geysermc.connector.network.session.GeyserSession;
+import org.geysermc.connector.utils.Timings;
+
+/**
+ * A task scheduled on the {@link TickScheduler}
+ */
+public class TickTask {
+    @Getter
+    private final String name;
+    /**
+     * The session this task belongs to, or null for connector-wide tasks. Tasks of a closed session are dropped.
+     */
+    @Getter
+    private final GeyserSession session;
+    private final Runnable runnable;
+    /**
+     * The amount of ticks between runs, or 0 if this task only runs once
+     */
+    @Getter
+    private final int period;
+    @Getter(AccessLevel.PACKAGE)
+    private final Timings timings;
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * The tick this task should run at next. Only used by the tick thread.
+     */
+    long deadline;
+    /**
+     * The next task in the same bucket of the wheel. Only used by the tick thread.
+     */
+    TickTask next;
+    /**
+     * If this task was handed to its session's event loop and hasn't finished running there yet
+     */
+    volatile boolean running = false;
+
+    TickTask(String name, GeyserSession session, Runnable runnable, int period, Timings timings) {
+        this.name = name;
+        this.session = session;
+        this.runnable = runnable;
+        this.period = period;
+        this.timings = timings;
+    }
+
+    /**
+     * Stop this task from running again. The task is only removed from the wheel once its bucket comes up.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || (session != null && session.isClosed());
+    }
+
+    void run() {
+        runnable.run();
+    }
+}
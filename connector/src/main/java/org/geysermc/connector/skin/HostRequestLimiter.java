@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.skin;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs web requests on an executor while limiting how many may be in flight to the same host at once.
+ * Requests over the limit wait in a queue rather than on a thread, so a burst of requests to one slow host
+ * can't take up every thread of the executor. Requests that wait in the queue for too long fail with a
+ * {@link TimeoutException} instead of being run, even while every request to their host is still running.
+ */
+public class HostRequestLimiter {
+    private final Executor executor;
+    /**
+     * Fails queued requests once they have waited for too long
+     */
+    private final ScheduledExecutorService timeoutScheduler;
+    private final int maxRequestsPerHost;
+    private final long queueTimeoutNanos;
+    /**
+     * The queues of the hosts that currently have requests running; a queue is removed once it has nothing left to run
+     */
+    private final Map<String, HostQueue> hosts = new ConcurrentHashMap<>();
+
+    public HostRequestLimiter(Executor executor, ScheduledExecutorService timeoutScheduler, int maxRequestsPerHost, long queueTimeoutMillis) {
+        this.executor = executor;
+        this.timeoutScheduler = timeoutScheduler;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+    }
+
+    /**
+     * Queues a request to the host of the given URL
+     *
+     * @param url The URL the request is made to
+     * @param request The blocking request
+     * @return A future completed with the result of the request once it has run
+     */
+    public <T> CompletableFuture<T> submit(String url, Supplier<T> request) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        QueuedRequest queuedRequest = new QueuedRequest(() -> {
+            try {
+                future.complete(request.get());
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }, future, System.nanoTime() + queueTimeoutNanos);
+
+        String host = getHost(url);
+        // A queue refuses the request if it was removed in the meantime, in which case a new queue is made
+        while (!hosts.computeIfAbsent(host, HostQueue::new).submit(queuedRequest)) {
+            Thread.yield();
+        }
+        return future;
+    }
+
+    /**
+     * @return the amount of hosts that currently have requests running or queued
+     */
+    int getHostCount() {
+        return hosts.size();
+    }
+
+    private static String getHost(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private static class QueuedRequest {
+        private final Runnable request;
+        private final CompletableFuture<?> future;
+        private final long deadline;
+        /**
+         * Fails the request if it is still queued at its deadline. Guarded by the queue of its host
+         */
+        private ScheduledFuture<?> timeout;
+
+        private QueuedRequest(Runnable request, CompletableFuture<?> future, long deadline) {
+            this.request = request;
+            this.future = future;
+            this.deadline = deadline;
+        }
+    }
+
+    private class HostQueue {
+        private final String host;
+        private final Queue<QueuedRequest> pending = new ArrayDeque<>();
+        private int running;
+        /**
+         * Set once this queue is removed from the map, after which it doesn't take new requests
+         */
+        private boolean removed;
+
+        private HostQueue(String host) {
+            this.host = host;
+        }
+
+        /**
+         * @return false if this queue was removed and the request should go to a new queue
+         */
+        private boolean submit(QueuedRequest request) {
+            synchronized (this) {
+                if (removed) {
+                    return false;
+                }
+                if (running >= maxRequestsPerHost) {
+                    pending.add(request);
+                    try {
+                        request.timeout = timeoutScheduler.schedule(() -> expire(request), queueTimeoutNanos, TimeUnit.NANOSECONDS);
+                    } catch (RejectedExecutionException e) {
+                        // Its deadline is still checked once a running request finishes
+                    }
+                    return true;
+                }
+                running++;
+            }
+            run(request);
+            return true;
+        }
+
+        private void run(QueuedRequest first) {
+            QueuedRequest request = first;
+            while (request != null) {
+                QueuedRequest current = request;
+                try {
+                    executor.execute(() -> {
+                        try {
+                            current.request.run();
+                        } finally {
+                            QueuedRequest next = finished();
+                            if (next != null) {
+                                run(next);
+                            }
+                        }
+                    });
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // The request never ran, so its slot is free again
+                    current.future.completeExceptionally(e);
+                    request = finished();
+                }
+            }
+        }
+
+        /**
+         * Fail a request that is still queued at its deadline
+         */
+        private void expire(QueuedRequest request) {
+            synchronized (this) {
+                if (!pending.remove(request)) {
+                    // Already running
+                    return;
+                }
+            }
+            request.future.completeExceptionally(new TimeoutException("Request to " + host + " waited too long in the queue"));
+        }
+
+        /**
+         * Free the slot of a request that finished, or hand it to the next queued request
+         *
+         * @return the queued request that takes over the slot, if any
+         */
+        private QueuedRequest finished() {
+            List<QueuedRequest> expired = null;
+            QueuedRequest next;
+            synchronized (this) {
+                long now = System.nanoTime();
+                while ((next = pending.poll()) != null && now - next.deadline > 0) {
+                    // Its timeout hasn't run yet
+                    if (expired == null) {
+                        expired = new ArrayList<>();
+                    }
+                    expired.add(next);
+                }
+                if (next == null) {
+                    running--;
+                    if (running == 0) {
+                        removed = true;
+                        hosts.remove(host, this);
+                    }
+                } else {
+                    cancelTimeout(next);
+                }
+            }
+
+            if (expired != null) {
+                // Completed outside of the lock, as this runs whatever depends on the futures
+                for (QueuedRequest request : expired) {
+                    cancelTimeout(request);
+                    request.future.completeExceptionally(new TimeoutException("Request to " + host + " waited too long in the queue"));
+                }
+            }
+            return next;
+        }
+
+        private void cancelTimeout(QueuedRequest request) {
+            if (request.timeout != null) {
+                request.timeout.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.skin;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.MapMaker;
+import com.google.common.hash.Hashing;
+import org.geysermc.connector.GeyserConnector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stores raw RGBA image data by the hash of its contents, so identical skins and capes downloaded from
+ * different URLs or sent by different Bedrock players share one array.
+ *
+ * Images are kept in memory up to a weighted budget. If image caching is enabled they are also written to disk
+ * as raw RGBA, with a small link file per URL pointing at the content, so they can be read straight back into
+ * memory instead of being decoded as PNGs.
+ */
+public class SkinDataStore {
+    private static final String DATA_EXTENSION = ".rgba";
+    private static final String LINK_EXTENSION = ".link";
+
+    private final Cache<String, byte[]> images;
+    /**
+     * Every array handed out by this store, compared by identity and held weakly so it doesn't keep evicted images alive
+     */
+    private final Set<byte[]> storedArrays = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+    /**
+     * The folder for the disk tier, or null if images shouldn't be written to disk
+     */
+    private final Path folder;
+
+    private final LongAdder sharedImages = new LongAdder();
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SkinDataStore(Path folder, long memoryBudget) {
+        this.folder = folder;
+        this.images = CacheBuilder.newBuilder()
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .maximumWeight(memoryBudget)
+                .weigher((String hash, byte[] data) -> data.length)
+                .build();
+    }
+
+    /**
+     * @param data Raw RGBA image data
+     * @return The array already stored with the same contents, or the given array if there isn't one yet
+     */
+    public byte[] intern(byte[] data) {
+        String hash = hash(data);
+        byte[] stored = images.asMap().putIfAbsent(hash, data);
+        if (stored != null) {
+            sharedImages.increment();
+            return stored;
+        }
+        storedArrays.add(data);
+        return data;
+    }
+
+    /**
+     * @param data Raw RGBA image data
+     * @return If the array was handed out by this store, so arrays with the same contents are the same instance
+     */
+    public boolean isStored(byte[] data) {
+        return storedArrays.contains(data);
+    }
+
+    /**
+     * Load the image last stored for the given URL from disk
+     *
+     * @param url The URL the image was downloaded from
+     * @return The image data, or null if it isn't on disk
+     */
+    public byte[] load(String url) {
+        if (folder == null) {
+            misses.increment();
+            return null;
+        }
+
+        File linkFile = folder.resolve(getUrlKey(url) + LINK_EXTENSION).toFile();
+        try {
+            if (linkFile.exists()) {
+                String hash = new String(Files.readAllBytes(linkFile.toPath()), StandardCharsets.UTF_8);
+                File dataFile = folder.resolve(hash + DATA_EXTENSION).toFile();
+
+                // Update the modification stamps so we know when the files were last used
+                linkFile.setLastModified(System.currentTimeMillis());
+                dataFile.setLastModified(System.currentTimeMillis());
+
+                byte[] data = images.getIfPresent(hash);
+                if (data != null) {
+                    memoryHits.increment();
+                    return data;
+                }
+
+                data = read(dataFile.toPath());
+                if (data != null) {
+                    diskHits.increment();
+                    return intern(data);
+                }
+            }
+        } catch (IOException e) {
+            GeyserConnector.getInstance().getLogger().debug("Failed to read cached image for " + url + ": " + e.getMessage());
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Store a downloaded image, writing it to disk if the disk tier is enabled
+     *
+     * @param url The URL the image was downloaded from
+     * @param data Raw RGBA image data
+     * @return The stored array, which may be shared with other images with the same contents
+     */
+    public byte[] store(String url, byte[] data) {
+        data = intern(data);
+        if (folder == null) {
+            return data;
+        }
+
+        String hash = hash(data);
+        try {
+            Files.createDirectories(folder);
+            Path dataFile = folder.resolve(hash + DATA_EXTENSION);
+            // The link is only written once the data file is fully in place, so a link never points at a partial image
+            writeAtomically(dataFile, data);
+            writeAtomically(folder.resolve(getUrlKey(url) + LINK_EXTENSION), hash.getBytes(StandardCharsets.UTF_8));
+            GeyserConnector.getInstance().getLogger().debug("Writing cached image to file " + dataFile + " for " + url);
+        } catch (IOException e) {
+            GeyserConnector.getInstance().getLogger().error("Failed to write cached image to disk for " + url);
+        }
+        return data;
+    }
+
+    /**
+     * Write the data to a temporary file in the same folder and move it over the target, so readers
+     * only ever see the old or the complete new contents
+     */
+    private static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, data);
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static byte[] read(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size == 0 || size % 4 != 0 || size > Integer.MAX_VALUE) {
+            return null;
+        }
+        return Files.readAllBytes(path);
+    }
+
+    private static String hash(byte[] data) {
+        return Hashing.sha256().hashBytes(data).toString();
+    }
+
+    private static String getUrlKey(String url) {
+        return Hashing.sha256().hashString(url, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * @return The bytes of image data held in memory
+     */
+    public long getMemoryUsage() {
+        long usage = 0;
+        for (byte[] data : images.asMap().values()) {
+            usage += data.length;
+        }
+        return usage;
+    }
+
+    public long getImageCount() {
+        return images.size();
+    }
+
+    /**
+     * @return How many images turned out to have the same contents as one already in memory
+     */
+    public long getSharedImages() {
+        return sharedImages.sum();
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.sum();
+    }
+
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The fraction of disk tier lookups that didn't have to download the image
+     */
+    public double getHitRate() {
+        long hits = getMemoryHits() + getDiskHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
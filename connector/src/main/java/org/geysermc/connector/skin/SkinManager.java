@@ -27,6 +27,8 @@ package org.geysermc.connector.skin;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.steveice10.mc.auth.data.GameProfile;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.nukkitx.protocol.bedrock.data.skin.ImageData;
 import com.nukkitx.protocol.bedrock.data.skin.SerializedSkin;
 import com.nukkitx.protocol.bedrock.packet.PlayerListPacket;
@@ -43,10 +45,23 @@ import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public class SkinManager {
 
+    /**
+     * Skins built for player list entries, shared by every session that shows the same skin, cape and geometry.
+     * Only skins whose images came from the {@link SkinDataStore} are kept, as the key compares images by reference.
+     */
+    private static final Cache<SkinKey, SerializedSkin> SERIALIZED_SKINS = CacheBuilder.newBuilder()
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .maximumWeight(SkinProvider.IMAGE_MEMORY_BUDGET)
+            .weigher((SkinKey key, SerializedSkin skin) -> key.skinData.length + key.capeData.length)
+            .build();
+
     public static PlayerListPacket.Entry buildCachedEntry(GeyserSession session, PlayerEntity playerEntity) {
         GameProfileData data = GameProfileData.from(playerEntity.getProfile());
         SkinProvider.Cape cape = SkinProvider.getCachedCape(data.getCapeUrl());
@@ -74,10 +89,20 @@ public class SkinManager {
                                                                  String skinId, byte[] skinData,
                                                                  String capeId, byte[] capeData,
                                                                  SkinProvider.SkinGeometry geometry) {
-        SerializedSkin serializedSkin = SerializedSkin.of(
-                skinId, geometry.getGeometryName(), ImageData.of(skinData), Collections.emptyList(),
-                ImageData.of(capeData), geometry.getGeometryData(), "", true, false, !capeId.equals(SkinProvider.EMPTY_CAPE.getCapeId()), capeId, skinId
-        );
+        SkinDataStore imageStore = SkinProvider.getImageStore();
+        // Images that didn't go through the store, such as skins with ears drawn on, are new arrays every time
+        boolean cacheable = imageStore.isStored(skinData) && (capeData.length == 0 || imageStore.isStored(capeData));
+        SkinKey key = cacheable ? new SkinKey(skinId, skinData, capeId, capeData, geometry) : null;
+        SerializedSkin serializedSkin = cacheable ? SERIALIZED_SKINS.getIfPresent(key) : null;
+        if (serializedSkin == null) {
+            serializedSkin = SerializedSkin.of(
+                    skinId, geometry.getGeometryName(), ImageData.of(skinData), Collections.emptyList(),
+                    ImageData.of(capeData), geometry.getGeometryData(), "", true, false, !capeId.equals(SkinProvider.EMPTY_CAPE.getCapeId()), capeId, skinId
+            );
+            if (cacheable) {
+                SERIALIZED_SKINS.put(key, serializedSkin);
+            }
+        }
 
         // This attempts to find the xuid of the player so profile images show up for xbox accounts
         String xuid = "";
@@ -112,92 +137,99 @@ public class SkinManager {
         GameProfileData data = GameProfileData.from(entity.getProfile());
 
         SkinProvider.requestSkinAndCape(entity.getUuid(), data.getSkinUrl(), data.getCapeUrl())
-                .whenCompleteAsync((skinAndCape, throwable) -> {
-                    try {
-                        SkinProvider.Skin skin = skinAndCape.getSkin();
-                        SkinProvider.Cape cape = skinAndCape.getCape();
-                        SkinProvider.SkinGeometry geometry = SkinProvider.SkinGeometry.getLegacy(data.isAlex());
-
-                        if (cape.isFailed()) {
-                            cape = SkinProvider.getOrDefault(SkinProvider.requestBedrockCape(entity.getUuid()),
-                                    SkinProvider.EMPTY_CAPE, 3);
-                        }
-
-                        if (cape.isFailed() && SkinProvider.ALLOW_THIRD_PARTY_CAPES) {
-                            cape = SkinProvider.getOrDefault(SkinProvider.requestUnofficialCape(
-                                    cape, entity.getUuid(),
-                                    entity.getUsername(), false
-                            ), SkinProvider.EMPTY_CAPE, SkinProvider.CapeProvider.VALUES.length * 3);
-                        }
-
-                        geometry = SkinProvider.getOrDefault(SkinProvider.requestBedrockGeometry(
-                                geometry, entity.getUuid()
-                        ), geometry, 3);
-
-                        // Not a bedrock player check for ears
-                        if (geometry.isFailed() && SkinProvider.ALLOW_THIRD_PARTY_EARS) {
-                            boolean isEars;
-
-                            // Its deadmau5, gotta support his skin :)
-                            if (entity.getUuid().toString().equals("1e18d5ff-643d-45c8-b509-43b8461d8614")) {
-                                isEars = true;
-                            } else {
-                                // Get the ears texture for the player
-                                skin = SkinProvider.getOrDefault(SkinProvider.requestUnofficialEars(
-                                        skin, entity.getUuid(), entity.getUsername(), false
-                                ), skin, 3);
-
-                                isEars = skin.isEars();
-                            }
-
-                            // Does the skin have an ears texture
-                            if (isEars) {
-                                // Get the new geometry
-                                geometry = SkinProvider.SkinGeometry.getEars(data.isAlex());
-
-                                // Store the skin and geometry for the ears
-                                SkinProvider.storeEarSkin(entity.getUuid(), skin);
-                                SkinProvider.storeEarGeometry(entity.getUuid(), data.isAlex());
-                            }
-                        }
+                .thenCompose(skinAndCape -> resolveSkinAndCape(entity, data, skinAndCape).thenApply(resolved -> {
+                    if (session.getUpstream().isInitialized()) {
+                        PlayerListPacket.Entry updatedEntry = buildEntryManually(
+                                session,
+                                entity.getUuid(),
+                                entity.getUsername(),
+                                entity.getGeyserId(),
+                                resolved.getSkin().getTextureUrl(),
+                                resolved.getSkin().getSkinData(),
+                                resolved.getCape().getCapeId(),
+                                resolved.getCape().getCapeData(),
+                                resolved.getGeometry()
+                        );
+
+
+                        PlayerListPacket playerAddPacket = new PlayerListPacket();
+                        playerAddPacket.setAction(PlayerListPacket.Action.ADD);
+                        playerAddPacket.getEntries().add(updatedEntry);
+                        session.sendUpstreamPacket(playerAddPacket);
+
+                        if (!entity.isPlayerList()) {
+                            PlayerListPacket playerRemovePacket = new PlayerListPacket();
+                            playerRemovePacket.setAction(PlayerListPacket.Action.REMOVE);
+                            playerRemovePacket.getEntries().add(updatedEntry);
+                            session.sendUpstreamPacket(playerRemovePacket);
 
-                        if (session.getUpstream().isInitialized()) {
-                            PlayerListPacket.Entry updatedEntry = buildEntryManually(
-                                    session,
-                                    entity.getUuid(),
-                                    entity.getUsername(),
-                                    entity.getGeyserId(),
-                                    skin.getTextureUrl(),
-                                    skin.getSkinData(),
-                                    cape.getCapeId(),
-                                    cape.getCapeData(),
-                                    geometry
-                            );
-
-
-                            PlayerListPacket playerAddPacket = new PlayerListPacket();
-                            playerAddPacket.setAction(PlayerListPacket.Action.ADD);
-                            playerAddPacket.getEntries().add(updatedEntry);
-                            session.sendUpstreamPacket(playerAddPacket);
-
-                            if (!entity.isPlayerList()) {
-                                PlayerListPacket playerRemovePacket = new PlayerListPacket();
-                                playerRemovePacket.setAction(PlayerListPacket.Action.REMOVE);
-                                playerRemovePacket.getEntries().add(updatedEntry);
-                                session.sendUpstreamPacket(playerRemovePacket);
-
-                            }
                         }
-                    } catch (Exception e) {
-                        GeyserConnector.getInstance().getLogger().error(LanguageUtils.getLocaleStringLog("geyser.skin.fail", entity.getUuid()), e);
+                    }
+                    return skinAndCape;
+                }))
+                .handle((skinAndCape, throwable) -> {
+                    if (throwable != null) {
+                        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                        GeyserConnector.getInstance().getLogger().error(LanguageUtils.getLocaleStringLog("geyser.skin.fail", entity.getUuid()), cause);
                     }
 
                     if (skinAndCapeConsumer != null) {
                         skinAndCapeConsumer.accept(skinAndCape);
                     }
+                    return null;
                 });
     }
 
+    /**
+     * Falls back to Bedrock and third party capes if the player has no official cape, and looks for third party
+     * ears if the player isn't using Bedrock geometry. Nothing here waits on a download while holding a thread.
+     *
+     * @param entity The player the skin is for
+     * @param data The player's profile data
+     * @param skinAndCape The skin and cape from the player's profile
+     * @return A future completed with the skin, cape and geometry to send to the client
+     */
+    private static CompletableFuture<ResolvedSkin> resolveSkinAndCape(PlayerEntity entity, GameProfileData data,
+                                                                      SkinProvider.SkinAndCape skinAndCape) {
+        CompletableFuture<SkinProvider.Cape> capeFuture = CompletableFuture.completedFuture(skinAndCape.getCape());
+        if (skinAndCape.getCape().isFailed()) {
+            capeFuture = SkinProvider.requestBedrockCape(entity.getUuid())
+                    .thenCompose(cape -> SkinProvider.requestUnofficialCape(cape, entity.getUuid(), entity.getUsername()));
+        }
+
+        CompletableFuture<SkinProvider.SkinGeometry> geometryFuture = SkinProvider.requestBedrockGeometry(
+                SkinProvider.SkinGeometry.getLegacy(data.isAlex()), entity.getUuid()
+        );
+
+        // Its deadmau5, gotta support his skin :)
+        boolean deadmau5 = entity.getUuid().toString().equals("1e18d5ff-643d-45c8-b509-43b8461d8614");
+
+        CompletableFuture<SkinProvider.Skin> skinFuture = geometryFuture.thenCompose(geometry -> {
+            // Not a bedrock player check for ears
+            if (geometry.isFailed() && SkinProvider.ALLOW_THIRD_PARTY_EARS && !deadmau5) {
+                // Get the ears texture for the player
+                return SkinProvider.requestUnofficialEars(skinAndCape.getSkin(), entity.getUuid(), entity.getUsername());
+            }
+            return CompletableFuture.completedFuture(skinAndCape.getSkin());
+        });
+
+        return skinFuture.thenCombine(geometryFuture, (skin, geometry) -> {
+            // Does the skin have an ears texture
+            if (geometry.isFailed() && SkinProvider.ALLOW_THIRD_PARTY_EARS && (deadmau5 || skin.isEars())) {
+                // Get the new geometry
+                geometry = SkinProvider.SkinGeometry.getEars(data.isAlex());
+
+                // Store the skin and geometry for the ears
+                SkinProvider.storeEarSkin(entity.getUuid(), skin);
+                SkinProvider.storeEarGeometry(entity.getUuid(), data.isAlex());
+            }
+            return new ResolvedSkin(skin, geometry);
+        }).thenCombine(capeFuture, (resolved, cape) -> {
+            resolved.cape = cape;
+            return resolved;
+        });
+    }
+
     public static void handleBedrockSkin(PlayerEntity playerEntity, BedrockClientData clientData) {
         GeyserConnector.getInstance().getLogger().info(LanguageUtils.getLocaleStringLog("geyser.skin.bedrock.register", playerEntity.getUsername(), playerEntity.getUuid()));
 
@@ -224,9 +256,73 @@ public class SkinManager {
         }
     }
 
+    /**
+     * Image data is compared by reference: identical images already share one array through the
+     * {@link SkinDataStore}, and hashing the contents would cost as much as building the skin again
+     */
+    private static class SkinKey {
+        private final String skinId;
+        private final byte[] skinData;
+        private final String capeId;
+        private final byte[] capeData;
+        private final String geometryName;
+        private final String geometryData;
+        private final int hashCode;
+
+        private SkinKey(String skinId, byte[] skinData, String capeId, byte[] capeData, SkinProvider.SkinGeometry geometry) {
+            this.skinId = skinId;
+            this.skinData = skinData;
+            this.capeId = capeId;
+            this.capeData = capeData;
+            this.geometryName = geometry.getGeometryName();
+            this.geometryData = geometry.getGeometryData();
+
+            int hashCode = skinId.hashCode();
+            hashCode = 31 * hashCode + System.identityHashCode(skinData);
+            hashCode = 31 * hashCode + capeId.hashCode();
+            hashCode = 31 * hashCode + System.identityHashCode(capeData);
+            hashCode = 31 * hashCode + geometryName.hashCode();
+            this.hashCode = 31 * hashCode + geometryData.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SkinKey)) return false;
+            SkinKey other = (SkinKey) o;
+            return skinData == other.skinData && capeData == other.capeData && skinId.equals(other.skinId) &&
+                    capeId.equals(other.capeId) && geometryName.equals(other.geometryName) && geometryData.equals(other.geometryData);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    @Getter
+    private static class ResolvedSkin {
+        private final SkinProvider.Skin skin;
+        private final SkinProvider.SkinGeometry geometry;
+        private SkinProvider.Cape cape;
+
+        private ResolvedSkin(SkinProvider.Skin skin, SkinProvider.SkinGeometry geometry) {
+            this.skin = skin;
+            this.geometry = geometry;
+        }
+    }
+
     @AllArgsConstructor
     @Getter
     public static class GameProfileData {
+        /**
+         * Parsed texture properties, so a player's profile isn't decoded again for every session that sees them
+         */
+        private static final Cache<String, GameProfileData> CACHED_PROFILE_DATA = CacheBuilder.newBuilder()
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .maximumSize(4096)
+                .build();
+
         private final String skinUrl;
         private final String capeUrl;
         private final boolean alex;
@@ -243,6 +339,10 @@ public class SkinManager {
 
             try {
                 GameProfile.Property skinProperty = profile.getProperty("textures");
+                GameProfileData cachedData = CACHED_PROFILE_DATA.getIfPresent(skinProperty.getValue());
+                if (cachedData != null) {
+                    return cachedData;
+                }
 
                 // TODO: Remove try/catch here
                 JsonNode skinObject = GeyserConnector.JSON_MAPPER.readTree(new String(Base64.getDecoder().decode(skinProperty.getValue()), StandardCharsets.UTF_8));
@@ -259,7 +359,9 @@ public class SkinManager {
                     capeUrl = capeTexture.get("url").asText().replace("http://", "https://");
                 }
 
-                return new GameProfileData(skinUrl, capeUrl, isAlex);
+                GameProfileData data = new GameProfileData(skinUrl, capeUrl, isAlex);
+                CACHED_PROFILE_DATA.put(skinProperty.getValue(), data);
+                return data;
             } catch (Exception exception) {
                 if (GeyserConnector.getInstance().getAuthType() != AuthType.OFFLINE) {
                     GeyserConnector.getInstance().getLogger().debug("Got invalid texture data for " + profile.getName() + " " + exception.getMessage());
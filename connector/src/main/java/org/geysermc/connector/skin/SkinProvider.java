@@ -58,10 +58,29 @@ import java.util.concurrent.*;
 public class SkinProvider {
     public static final boolean ALLOW_THIRD_PARTY_CAPES = GeyserConnector.getInstance().getConfig().isAllowThirdPartyCapes();
     private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(ALLOW_THIRD_PARTY_CAPES ? 21 : 14);
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int READ_TIMEOUT_MILLIS = 5000;
+    /**
+     * How long a download may wait for its host to be free before giving up
+     */
+    private static final int QUEUE_TIMEOUT_MILLIS = 30000;
+    /**
+     * Downloads are queued per host so a join wave can't tie up every thread on one slow host
+     */
+    private static final HostRequestLimiter REQUEST_LIMITER = new HostRequestLimiter(EXECUTOR_SERVICE,
+            GeyserConnector.getInstance().getGeneralThreadPool(), 6, QUEUE_TIMEOUT_MILLIS);
+
+    /**
+     * How many bytes of image data may be kept in memory, by each of the caches below
+     */
+    static final long IMAGE_MEMORY_BUDGET = 64L * 1024 * 1024;
+    @Getter
+    private static final SkinDataStore imageStore = new SkinDataStore(GeyserConnector.getInstance().getConfig().getCacheImages() > 0 ?
+            GeyserConnector.getInstance().getBootstrap().getConfigFolder().resolve("cache").resolve("images") : null, IMAGE_MEMORY_BUDGET);
 
-    public static final byte[] STEVE_SKIN = new ProvidedSkin("bedrock/skin/skin_steve.png").getSkin();
+    public static final byte[] STEVE_SKIN = imageStore.intern(new ProvidedSkin("bedrock/skin/skin_steve.png").getSkin());
     public static final Skin EMPTY_SKIN = new Skin(-1, "steve", STEVE_SKIN);
-    public static final byte[] ALEX_SKIN = new ProvidedSkin("bedrock/skin/skin_alex.png").getSkin();
+    public static final byte[] ALEX_SKIN = imageStore.intern(new ProvidedSkin("bedrock/skin/skin_alex.png").getSkin());
     public static final Skin EMPTY_SKIN_ALEX = new Skin(-1, "alex", ALEX_SKIN);
     private static final Map<String, Skin> permanentSkins = new HashMap<String, Skin>() {{
         put("steve", EMPTY_SKIN);
@@ -69,6 +88,9 @@ public class SkinProvider {
     }};
     private static final Cache<String, Skin> cachedSkins = CacheBuilder.newBuilder()
             .expireAfterAccess(1, TimeUnit.HOURS)
+            .maximumWeight(IMAGE_MEMORY_BUDGET)
+            .weigher((String url, Skin skin) -> skin.getSkinData().length)
+            .recordStats()
             .build();
 
     private static final Map<String, CompletableFuture<Skin>> requestedSkins = new ConcurrentHashMap<>();
@@ -76,11 +98,18 @@ public class SkinProvider {
     public static final Cape EMPTY_CAPE = new Cape("", "no-cape", new byte[0], -1, true);
     private static final Cache<String, Cape> cachedCapes = CacheBuilder.newBuilder()
             .expireAfterAccess(1, TimeUnit.HOURS)
+            .maximumWeight(IMAGE_MEMORY_BUDGET)
+            .weigher((String url, Cape cape) -> cape.getCapeData().length)
+            .recordStats()
             .build();
     private static final Map<String, CompletableFuture<Cape>> requestedCapes = new ConcurrentHashMap<>();
 
     public static final SkinGeometry EMPTY_GEOMETRY = SkinProvider.SkinGeometry.getLegacy(false);
-    private static final Map<UUID, SkinGeometry> cachedGeometry = new ConcurrentHashMap<>();
+    private static final Cache<UUID, SkinGeometry> cachedGeometry = CacheBuilder.newBuilder()
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .maximumWeight(IMAGE_MEMORY_BUDGET)
+            .weigher((UUID uuid, SkinGeometry geometry) -> geometry.getGeometryName().length() + geometry.getGeometryData().length())
+            .build();
 
     public static final boolean ALLOW_THIRD_PARTY_EARS = GeyserConnector.getInstance().getConfig().isAllowThirdPartyEars();
     public static String EARS_GEOMETRY;
@@ -139,108 +168,121 @@ public class SkinProvider {
     }
 
     public static CompletableFuture<SkinAndCape> requestSkinAndCape(UUID playerId, String skinUrl, String capeUrl) {
-        return CompletableFuture.supplyAsync(() -> {
-            long time = System.currentTimeMillis();
-            String newSkinUrl = skinUrl;
+        long time = System.currentTimeMillis();
+        String newSkinUrl = skinUrl;
 
-            if ("steve".equals(skinUrl) || "alex".equals(skinUrl)) {
-                GeyserSession session = GeyserConnector.getInstance().getPlayerByUuid(playerId);
+        if ("steve".equals(skinUrl) || "alex".equals(skinUrl)) {
+            GeyserSession session = GeyserConnector.getInstance().getPlayerByUuid(playerId);
 
-                if (session != null) {
-                    newSkinUrl = session.getClientData().getSkinId();
-                }
+            if (session != null) {
+                newSkinUrl = session.getClientData().getSkinId();
             }
+        }
 
-            CapeProvider provider = capeUrl != null ? CapeProvider.MINECRAFT : null;
-            SkinAndCape skinAndCape = new SkinAndCape(
-                    getOrDefault(requestSkin(playerId, newSkinUrl, false), EMPTY_SKIN, 5),
-                    getOrDefault(requestCape(capeUrl, provider, false), EMPTY_CAPE, 5)
-            );
-
+        CapeProvider provider = capeUrl != null ? CapeProvider.MINECRAFT : null;
+        return requestSkin(playerId, newSkinUrl).thenCombine(requestCape(capeUrl, provider), (skin, cape) -> {
             GeyserConnector.getInstance().getLogger().debug("Took " + (System.currentTimeMillis() - time) + "ms for " + playerId);
-            return skinAndCape;
-        }, EXECUTOR_SERVICE);
+            return new SkinAndCape(skin, cape);
+        });
     }
 
-    public static CompletableFuture<Skin> requestSkin(UUID playerId, String textureUrl, boolean newThread) {
+    /**
+     * Requests a skin, sharing the download with any other request for the same texture that is still running
+     *
+     * @param playerId The UUID of the player the skin belongs to
+     * @param textureUrl The URL of the skin texture
+     * @return A future completed with the skin, or the empty skin if it couldn't be downloaded
+     */
+    public static CompletableFuture<Skin> requestSkin(UUID playerId, String textureUrl) {
         if (textureUrl == null || textureUrl.isEmpty()) return CompletableFuture.completedFuture(EMPTY_SKIN);
-        if (requestedSkins.containsKey(textureUrl)) return requestedSkins.get(textureUrl); // already requested
 
         Skin cachedSkin = getCachedSkin(textureUrl);
         if (cachedSkin != null) {
             return CompletableFuture.completedFuture(cachedSkin);
         }
 
-        CompletableFuture<Skin> future;
-        if (newThread) {
-            future = CompletableFuture.supplyAsync(() -> supplySkin(playerId, textureUrl), EXECUTOR_SERVICE)
-                    .whenCompleteAsync((skin, throwable) -> {
-                        skin.updated = true;
-                        cachedSkins.put(textureUrl, skin);
-                        requestedSkins.remove(textureUrl);
-                    });
-            requestedSkins.put(textureUrl, future);
-        } else {
-            Skin skin = supplySkin(playerId, textureUrl);
-            future = CompletableFuture.completedFuture(skin);
-            cachedSkins.put(textureUrl, skin);
+        CompletableFuture<Skin> future = new CompletableFuture<>();
+        CompletableFuture<Skin> requestedSkin = requestedSkins.putIfAbsent(textureUrl, future);
+        if (requestedSkin != null) {
+            return requestedSkin; // already requested
         }
+
+        REQUEST_LIMITER.submit(textureUrl, () -> supplySkin(playerId, textureUrl))
+                .whenComplete((skin, throwable) -> {
+                    if (skin == null) {
+                        skin = new Skin(playerId, "empty", EMPTY_SKIN.getSkinData(), System.currentTimeMillis(), false, false);
+                    }
+                    skin.updated = true;
+                    // A skin that waited too long for its host isn't cached, so it is requested again next time
+                    if (!(throwable instanceof TimeoutException)) {
+                        cachedSkins.put(textureUrl, skin);
+                    }
+                    requestedSkins.remove(textureUrl);
+                    future.complete(skin);
+                });
         return future;
     }
 
-    public static CompletableFuture<Cape> requestCape(String capeUrl, CapeProvider provider, boolean newThread) {
+    /**
+     * Requests a cape, sharing the download with any other request for the same texture that is still running
+     *
+     * @param capeUrl The URL of the cape texture
+     * @param provider The cape provider the URL belongs to
+     * @return A future completed with the cape, which is marked as failed if it couldn't be downloaded
+     */
+    public static CompletableFuture<Cape> requestCape(String capeUrl, CapeProvider provider) {
         if (capeUrl == null || capeUrl.isEmpty()) return CompletableFuture.completedFuture(EMPTY_CAPE);
-        if (requestedCapes.containsKey(capeUrl)) return requestedCapes.get(capeUrl); // already requested
 
         Cape cachedCape = cachedCapes.getIfPresent(capeUrl);
         if (cachedCape != null) {
             return CompletableFuture.completedFuture(cachedCape);
         }
 
-        CompletableFuture<Cape> future;
-        if (newThread) {
-            future = CompletableFuture.supplyAsync(() -> supplyCape(capeUrl, provider), EXECUTOR_SERVICE)
-                    .whenCompleteAsync((cape, throwable) -> {
-                        cachedCapes.put(capeUrl, cape);
-                        requestedCapes.remove(capeUrl);
-                    });
-            requestedCapes.put(capeUrl, future);
-        } else {
-            Cape cape = supplyCape(capeUrl, provider); // blocking
-            future = CompletableFuture.completedFuture(cape);
-            cachedCapes.put(capeUrl, cape);
+        CompletableFuture<Cape> future = new CompletableFuture<>();
+        CompletableFuture<Cape> requestedCape = requestedCapes.putIfAbsent(capeUrl, future);
+        if (requestedCape != null) {
+            return requestedCape; // already requested
         }
+
+        REQUEST_LIMITER.submit(capeUrl, () -> supplyCape(capeUrl, provider))
+                .whenComplete((cape, throwable) -> {
+                    if (cape == null) {
+                        cape = EMPTY_CAPE;
+                    } else {
+                        cachedCapes.put(capeUrl, cape);
+                    }
+                    requestedCapes.remove(capeUrl);
+                    future.complete(cape);
+                });
         return future;
     }
 
-    public static CompletableFuture<Cape> requestUnofficialCape(Cape officialCape, UUID playerId,
-                                                                String username, boolean newThread) {
-        if (officialCape.isFailed() && ALLOW_THIRD_PARTY_CAPES) {
-            for (CapeProvider provider : CapeProvider.VALUES) {
-                Cape cape1 = getOrDefault(
-                        requestCape(provider.getUrlFor(playerId, username), provider, newThread),
-                        EMPTY_CAPE, 4
-                );
-                if (!cape1.isFailed()) {
-                    return CompletableFuture.completedFuture(cape1);
-                }
-            }
+    /**
+     * Try each third party cape provider in order of priority, until one has a cape for the player
+     *
+     * @param officialCape The cape from the player's profile
+     * @param playerId The players UUID
+     * @param username The players username
+     * @return The first cape found, or the official cape if none of the providers have one
+     */
+    public static CompletableFuture<Cape> requestUnofficialCape(Cape officialCape, UUID playerId, String username) {
+        if (!officialCape.isFailed() || !ALLOW_THIRD_PARTY_CAPES) {
+            return CompletableFuture.completedFuture(officialCape);
+        }
+
+        CompletableFuture<Cape> future = CompletableFuture.completedFuture(officialCape);
+        for (CapeProvider provider : CapeProvider.VALUES) {
+            future = future.thenCompose(cape -> cape.isFailed() ?
+                    requestCape(provider.getUrlFor(playerId, username), provider) : CompletableFuture.completedFuture(cape));
         }
-        return CompletableFuture.completedFuture(officialCape);
+        return future.thenApply(cape -> cape.isFailed() ? officialCape : cape);
     }
 
-    public static CompletableFuture<Skin> requestEars(String earsUrl, EarsProvider provider, boolean newThread, Skin skin) {
+    public static CompletableFuture<Skin> requestEars(String earsUrl, EarsProvider provider, Skin skin) {
         if (earsUrl == null || earsUrl.isEmpty()) return CompletableFuture.completedFuture(skin);
 
-        CompletableFuture<Skin> future;
-        if (newThread) {
-            future = CompletableFuture.supplyAsync(() -> supplyEars(skin, earsUrl, provider), EXECUTOR_SERVICE)
-                    .whenCompleteAsync((outSkin, throwable) -> { });
-        } else {
-            Skin ears = supplyEars(skin, earsUrl, provider); // blocking
-            future = CompletableFuture.completedFuture(ears);
-        }
-        return future;
+        return REQUEST_LIMITER.submit(earsUrl, () -> supplyEars(skin, earsUrl, provider))
+                .exceptionally(throwable -> skin);
     }
 
     /**
@@ -249,21 +291,15 @@ public class SkinProvider {
      * @param officialSkin The current players skin
      * @param playerId The players UUID
      * @param username The players username
-     * @param newThread Should we start in a new thread
      * @return The updated skin with ears
      */
-    public static CompletableFuture<Skin> requestUnofficialEars(Skin officialSkin, UUID playerId, String username, boolean newThread) {
+    public static CompletableFuture<Skin> requestUnofficialEars(Skin officialSkin, UUID playerId, String username) {
+        CompletableFuture<Skin> future = CompletableFuture.completedFuture(officialSkin);
         for (EarsProvider provider : EarsProvider.VALUES) {
-            Skin skin1 = getOrDefault(
-                    requestEars(provider.getUrlFor(playerId, username), provider, newThread, officialSkin),
-                    officialSkin, 4
-            );
-            if (skin1.isEars()) {
-                return CompletableFuture.completedFuture(skin1);
-            }
+            future = future.thenCompose(skin -> skin.isEars() ?
+                    CompletableFuture.completedFuture(skin) : requestEars(provider.getUrlFor(playerId, username), provider, officialSkin));
         }
-
-        return CompletableFuture.completedFuture(officialSkin);
+        return future;
     }
 
     public static CompletableFuture<Cape> requestBedrockCape(UUID playerID) {
@@ -275,17 +311,20 @@ public class SkinProvider {
     }
 
     public static CompletableFuture<SkinGeometry> requestBedrockGeometry(SkinGeometry currentGeometry, UUID playerID) {
-        SkinGeometry bedrockGeometry = cachedGeometry.getOrDefault(playerID, currentGeometry);
+        SkinGeometry bedrockGeometry = cachedGeometry.getIfPresent(playerID);
+        if (bedrockGeometry == null) {
+            bedrockGeometry = currentGeometry;
+        }
         return CompletableFuture.completedFuture(bedrockGeometry);
     }
 
     public static void storeBedrockSkin(UUID playerID, String skinID, byte[] skinData) {
-        Skin skin = new Skin(playerID, skinID, skinData, System.currentTimeMillis(), true, false);
+        Skin skin = new Skin(playerID, skinID, imageStore.intern(skinData), System.currentTimeMillis(), true, false);
         cachedSkins.put(skin.getTextureUrl(), skin);
     }
 
     public static void storeBedrockCape(UUID playerID, byte[] capeData) {
-        Cape cape = new Cape(playerID.toString() + ".Bedrock", playerID.toString(), capeData, System.currentTimeMillis(), false);
+        Cape cape = new Cape(playerID.toString() + ".Bedrock", playerID.toString(), imageStore.intern(capeData), System.currentTimeMillis(), false);
         cachedCapes.put(playerID.toString() + ".Bedrock", cape);
     }
 
@@ -351,8 +390,7 @@ public class SkinProvider {
     private static Skin supplyEars(Skin existingSkin, String earsUrl, EarsProvider provider) {
         try {
             // Get the ears texture
-            BufferedImage ears = ImageIO.read(new URL(earsUrl));
-            if (ears == null) throw new NullPointerException();
+            BufferedImage ears = downloadImage(earsUrl, null);
 
             // Convert the skin data to a BufferedImage
             int height = (existingSkin.getSkinData().length / 4 / 64);
@@ -382,36 +420,16 @@ public class SkinProvider {
         return existingSkin;
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     private static byte[] requestImage(String imageUrl, CapeProvider provider) throws Exception {
-        BufferedImage image = null;
-
-        // First see if we have a cached file. We also update the modification stamp so we know when the file was last used
-        File imageFile = GeyserConnector.getInstance().getBootstrap().getConfigFolder().resolve("cache").resolve("images").resolve(UUID.nameUUIDFromBytes(imageUrl.getBytes()).toString() + ".png").toFile();
-        if (imageFile.exists()) {
-            try {
-                GeyserConnector.getInstance().getLogger().debug("Reading cached image from file " + imageFile.getPath() + " for " + imageUrl);
-                imageFile.setLastModified(System.currentTimeMillis());
-                image = ImageIO.read(imageFile);
-            } catch (IOException ignored) {}
+        // First see if we have the image on disk, already converted
+        byte[] data = imageStore.load(imageUrl);
+        if (data != null) {
+            GeyserConnector.getInstance().getLogger().debug("Read cached image for " + imageUrl);
+            return data;
         }
 
-        // If no image we download it
-        if (image == null) {
-            image = downloadImage(imageUrl, provider);
-            GeyserConnector.getInstance().getLogger().debug("Downloaded " + imageUrl);
-
-            // Write to cache if we are allowed
-            if (GeyserConnector.getInstance().getConfig().getCacheImages() > 0) {
-                imageFile.getParentFile().mkdirs();
-                try {
-                    ImageIO.write(image, "png", imageFile);
-                    GeyserConnector.getInstance().getLogger().debug("Writing cached skin to file " + imageFile.getPath() + " for " + imageUrl);
-                } catch (IOException e) {
-                    GeyserConnector.getInstance().getLogger().error("Failed to write cached skin to file " + imageFile.getPath() + " for " + imageUrl);
-                }
-            }
-        }
+        BufferedImage image = downloadImage(imageUrl, provider);
+        GeyserConnector.getInstance().getLogger().debug("Downloaded " + imageUrl);
 
         // if the requested image is a cape
         if (provider != null) {
@@ -425,9 +443,23 @@ public class SkinProvider {
             image = newImage;
         }
 
-        byte[] data = bufferedImageToImageData(image);
+        data = bufferedImageToImageData(image);
         image.flush();
-        return data;
+        return imageStore.store(imageUrl, data);
+    }
+
+    /**
+     * @return Hit rate of the URL keyed skin cache
+     */
+    public static double getSkinHitRate() {
+        return cachedSkins.stats().hitRate();
+    }
+
+    /**
+     * @return Hit rate of the URL keyed cape cache
+     */
+    public static double getCapeHitRate() {
+        return cachedCapes.stats().hitRate();
     }
 
     /**
@@ -490,6 +522,9 @@ public class SkinProvider {
 
         HttpURLConnection con = (HttpURLConnection) new URL(imageUrl).openConnection();
         con.setRequestProperty("User-Agent", "Geyser-" + GeyserConnector.getInstance().getPlatformType().toString() + "/" + GeyserConnector.VERSION);
+        // Bound how long a download can hold one of the executor's threads
+        con.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        con.setReadTimeout(READ_TIMEOUT_MILLIS);
 
         BufferedImage image = ImageIO.read(con.getInputStream());
         if (image == null) throw new NullPointerException();
@@ -569,13 +604,6 @@ public class SkinProvider {
         return outputStream.toByteArray();
     }
 
-    public static <T> T getOrDefault(CompletableFuture<T> future, T defaultValue, int timeoutInSeconds) {
-        try {
-            return future.get(timeoutInSeconds, TimeUnit.SECONDS);
-        } catch (Exception ignored) {}
-        return defaultValue;
-    }
-
     @AllArgsConstructor
     @Getter
     public static class SkinAndCape {
@@ -64,8 +64,8 @@ public class SkullSkinManager extends SkinManager {
                                             Consumer<SkinProvider.Skin> skinConsumer) {
         GameProfileData data = GameProfileData.from(entity.getProfile());
 
-        SkinProvider.requestSkin(entity.getUuid(), data.getSkinUrl(), false)
-                .whenCompleteAsync((skin, throwable) -> {
+        SkinProvider.requestSkin(entity.getUuid(), data.getSkinUrl())
+                .whenComplete((skin, throwable) -> {
                     try {
                         if (session.getUpstream().isInitialized()) {
                             PlayerListPacket.Entry updatedEntry = buildSkullEntryManually(
@@ -39,11 +39,20 @@ import com.nukkitx.math.vector.Vector3i;
 import com.nukkitx.nbt.NBTOutputStream;
 import com.nukkitx.nbt.NbtMap;
 import com.nukkitx.nbt.NbtUtils;
+import com.nukkitx.network.VarInts;
 import com.nukkitx.protocol.bedrock.packet.LevelChunkPacket;
 import com.nukkitx.protocol.bedrock.packet.NetworkChunkPublisherUpdatePacket;
 import com.nukkitx.protocol.bedrock.packet.UpdateBlockPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import lombok.Data;
@@ -53,14 +62,19 @@ import org.geysermc.connector.entity.Entity;
 import org.geysermc.connector.entity.ItemFrameEntity;
 import org.geysermc.connector.entity.player.SkullPlayerEntity;
 import org.geysermc.connector.network.session.GeyserSession;
-import org.geysermc.connector.network.translators.world.block.BlockStateValues;
+import org.geysermc.connector.network.translators.BiomeTranslator;
 import org.geysermc.connector.network.translators.world.block.BlockTranslator;
 import org.geysermc.connector.network.translators.world.block.entity.BedrockOnlyBlockEntity;
 import org.geysermc.connector.network.translators.world.block.entity.BlockEntityTranslator;
 import org.geysermc.connector.network.translators.world.block.entity.RequiresBlockState;
 import org.geysermc.connector.network.translators.world.block.entity.SkullBlockEntityTranslator;
 import org.geysermc.connector.network.translators.world.chunk.BlockStorage;
+import org.geysermc.connector.network.translators.world.chunk.CachedChunkSection;
+import org.geysermc.connector.network.translators.world.chunk.CachedColumn;
+import org.geysermc.connector.network.translators.world.chunk.ChunkBlobCache;
+import org.geysermc.connector.network.translators.world.chunk.ChunkPayload;
 import org.geysermc.connector.network.translators.world.chunk.ChunkSection;
+import org.geysermc.connector.network.translators.world.chunk.SectionTranscoder;
 import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArray;
 import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArrayVersion;
 
@@ -100,12 +114,44 @@ public class ChunkUtils {
         }
     }
 
-    private static int indexYZXtoXZY(int yzx) {
-        return (yzx >> 8) | (yzx & 0x0F0) | ((yzx & 0x00F) << 8);
+    /**
+     * How many block updates a column needs to receive at once before it is cheaper to send the whole column again.
+     * Two UpdateBlockPackets cost the client about as much as a few hundred bytes of chunk data.
+     */
+    public static final int BATCHED_UPDATE_RESEND_THRESHOLD = 256;
+
+    /**
+     * Per-thread buffer holding the unpacked block values of the section currently being translated
+     */
+    private static final ThreadLocal<int[]> SECTION_SCRATCH = ThreadLocal.withInitial(() -> new int[BlockStorage.SIZE]);
+
+    /**
+     * Translate a Java column to Bedrock.
+     *
+     * @param session the session the column is translated for
+     * @param column the column received from the server
+     * @param cachedColumn for non-full chunks, the cached column to take missing sections and block entities from. May be null
+     * @param isNonFullChunk if the column received from the server is a non-full chunk
+     * @return the translated sections and block entities
+     */
+    public static ChunkData translateToBedrock(GeyserSession session, Column column, CachedColumn cachedColumn, boolean isNonFullChunk) {
+        return translateToBedrock(session, column.getX(), column.getZ(), column.getChunks(), column.getTileEntities(), cachedColumn, isNonFullChunk);
     }
 
-    public static ChunkData translateToBedrock(GeyserSession session, Column column, boolean isNonFullChunk) {
-        Chunk[] javaSections = column.getChunks();
+    /**
+     * Translate a cached column to Bedrock, to send it again after it changed
+     *
+     * @param session the session the column is translated for
+     * @param cachedColumn the cached column
+     * @return the translated sections and block entities
+     */
+    public static ChunkData translateToBedrock(GeyserSession session, CachedColumn cachedColumn) {
+        return translateToBedrock(session, cachedColumn.getX(), cachedColumn.getZ(), new Chunk[cachedColumn.getSectionCount()],
+                cachedColumn.getTileEntities(), cachedColumn, true);
+    }
+
+    private static ChunkData translateToBedrock(GeyserSession session, int chunkX, int chunkZ, Chunk[] javaSections,
+                                                CompoundTag[] javaBlockEntities, CachedColumn cachedColumn, boolean isNonFullChunk) {
         ChunkSection[] sections = new ChunkSection[javaSections.length];
 
         // Temporarily stores compound tags of Bedrock-only block entities
@@ -118,54 +164,73 @@ public class ChunkUtils {
 
         // If the received packet was a full chunk update, null sections in the chunk are guaranteed to also be null in the world manager
         boolean shouldCheckWorldManagerOnMissingSections = isNonFullChunk && worldManagerHasMoreBlockDataThanCache;
-        Chunk temporarySection = null;
 
+        // Sections the packet doesn't contain are taken from the cache, or failing that from the world manager
+        CachedChunkSection[] cachedSections = new CachedChunkSection[javaSections.length];
+        BitSet missingSections = new BitSet();
         for (int sectionY = 0; sectionY < javaSections.length; sectionY++) {
-            Chunk javaSection = javaSections[sectionY];
-
-            // Section is null, the cache will not contain anything of use
-            if (javaSection == null) {
-                // The column parameter contains all data currently available from the cache. If the chunk is null and the world manager
-                // reports the ability to access more data than the cache, attempt to fetch from the world manager instead.
-                if (shouldCheckWorldManagerOnMissingSections) {
-                    // Ensure that temporary chunk is set
-                    if (temporarySection == null) {
-                        temporarySection = new Chunk();
-                    }
+            if (javaSections[sectionY] != null) {
+                continue;
+            }
+            if (cachedColumn != null) {
+                // A copy, as the downstream thread can keep updating the cached column meanwhile
+                cachedSections[sectionY] = cachedColumn.getSection(sectionY);
+            }
+            if (cachedSections[sectionY] == null) {
+                missingSections.set(sectionY);
+            }
+        }
 
-                    // Read block data in section
-                    session.getConnector().getWorldManager().getBlocksInSection(session, column.getX(), sectionY, column.getZ(), temporarySection);
+        Chunk[] worldManagerSections = null;
+        if (shouldCheckWorldManagerOnMissingSections && !missingSections.isEmpty()) {
+            // Read every missing section at once, so the world manager only has to look the column up once
+            worldManagerSections = new Chunk[javaSections.length];
+            session.getConnector().getWorldManager().getBlocksInColumn(session, chunkX, chunkZ, missingSections, worldManagerSections);
+        }
 
-                    if (temporarySection.isEmpty()) {
-                        // The world manager only contains air for the given section
-                        // We can leave temporarySection as-is to allow it to potentially be re-used for later sections
-                        continue;
-                    } else {
-                        javaSection = temporarySection;
+        for (int sectionY = 0; sectionY < javaSections.length; sectionY++) {
+            Chunk javaSection = javaSections[sectionY];
+            CachedChunkSection cachedSection = cachedSections[sectionY];
 
-                        // Section contents have been modified, we can't re-use it
-                        temporarySection = null;
-                    }
-                } else {
+            // Section is null, the cache will not contain anything of use
+            if (javaSection == null && cachedSection == null) {
+                // Neither the column nor the cache contain this section. If the world manager reports the ability to access
+                // more data than the cache, it may have the section instead.
+                if (worldManagerSections == null || worldManagerSections[sectionY] == null) {
+                    // The world manager only contains air for the given section, or can't be checked
                     continue;
                 }
+                javaSection = worldManagerSections[sectionY];
             }
 
-            // No need to encode an empty section...
-            if (javaSection.isEmpty()) {
-                continue;
-            }
+            // Unpack the whole section once instead of going through BitStorage.get for every block
+            int[] javaValues = SECTION_SCRATCH.get();
+            // The Java block states of the section, or null if the values are the block states themselves
+            int[] javaPalette;
+            int bitsPerEntry;
+            if (javaSection != null) {
+                // No need to encode an empty section...
+                if (javaSection.isEmpty()) {
+                    continue;
+                }
 
-            Palette javaPalette = javaSection.getPalette();
-            BitStorage javaData = javaSection.getStorage();
+                BitStorage javaData = javaSection.getStorage();
+                SectionTranscoder.unpackJavaStorage(javaData, javaValues);
+                bitsPerEntry = javaData.getBitsPerEntry();
+                javaPalette = toStateArray(javaSection.getPalette());
+            } else {
+                cachedSection.unpack(javaValues);
+                bitsPerEntry = cachedSection.getBitsPerEntry();
+                javaPalette = cachedSection.getPalette();
+            }
 
-            if (javaPalette instanceof GlobalPalette) {
+            if (javaPalette == null) {
                 // As this is the global palette, simply iterate through the whole chunk section once
                 ChunkSection section = new ChunkSection();
                 for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
-                    int javaId = javaData.get(yzx);
+                    int javaId = javaValues[yzx];
                     int bedrockId = BlockTranslator.getBedrockBlockId(javaId);
-                    int xzy = indexYZXtoXZY(yzx);
+                    int xzy = SectionTranscoder.indexYZXtoXZY(yzx);
                     section.getBlockStorageArray()[0].setFullBlock(xzy, bedrockId);
 
                     if (BlockTranslator.isWaterlogged(javaId)) {
@@ -173,9 +238,9 @@ public class ChunkUtils {
                     }
 
                     // Check if block is piston or flower to see if we'll need to create additional block entities, as they're only block entities in Bedrock
-                    if (BlockStateValues.getFlowerPotValues().containsKey(javaId) || BlockStateValues.getPistonValues().containsKey(javaId)) {
+                    if (BlockTranslator.hasBedrockOnlyBlockEntity(javaId)) {
                         bedrockOnlyBlockEntities.add(BedrockOnlyBlockEntity.getTag(
-                                Vector3i.from((column.getX() << 4) + (yzx & 0xF), (sectionY << 4) + ((yzx >> 8) & 0xF), (column.getZ() << 4) + ((yzx >> 4) & 0xF)),
+                                Vector3i.from((chunkX << 4) + (yzx & 0xF), (sectionY << 4) + ((yzx >> 8) & 0xF), (chunkZ << 4) + ((yzx >> 4) & 0xF)),
                                 javaId
                         ));
                     }
@@ -184,13 +249,13 @@ public class ChunkUtils {
                 continue;
             }
 
-            IntList bedrockPalette = new IntArrayList(javaPalette.size());
+            IntList bedrockPalette = new IntArrayList(javaPalette.length);
             waterloggedPaletteIds.clear();
             pistonOrFlowerPaletteIds.clear();
 
             // Iterate through palette and convert state IDs to Bedrock, doing some additional checks as we go
-            for (int i = 0; i < javaPalette.size(); i++) {
-                int javaId = javaPalette.idToState(i);
+            for (int i = 0; i < javaPalette.length; i++) {
+                int javaId = javaPalette[i];
                 bedrockPalette.add(BlockTranslator.getBedrockBlockId(javaId));
 
                 if (BlockTranslator.isWaterlogged(javaId)) {
@@ -198,7 +263,7 @@ public class ChunkUtils {
                 }
 
                 // Check if block is piston or flower to see if we'll need to create additional block entities, as they're only block entities in Bedrock
-                if (BlockStateValues.getFlowerPotValues().containsKey(javaId) || BlockStateValues.getPistonValues().containsKey(javaId)) {
+                if (BlockTranslator.hasBedrockOnlyBlockEntity(javaId)) {
                     pistonOrFlowerPaletteIds.set(i);
                 }
             }
@@ -208,37 +273,33 @@ public class ChunkUtils {
             // for no reason, as most sections will not contain any pistons or flower pots
             if (!pistonOrFlowerPaletteIds.isEmpty()) {
                 for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
-                    int paletteId = javaData.get(yzx);
+                    int paletteId = javaValues[yzx];
                     if (pistonOrFlowerPaletteIds.get(paletteId)) {
                         bedrockOnlyBlockEntities.add(BedrockOnlyBlockEntity.getTag(
-                                Vector3i.from((column.getX() << 4) + (yzx & 0xF), (sectionY << 4) + ((yzx >> 8) & 0xF), (column.getZ() << 4) + ((yzx >> 4) & 0xF)),
-                                javaPalette.idToState(paletteId)
+                                Vector3i.from((chunkX << 4) + (yzx & 0xF), (sectionY << 4) + ((yzx >> 8) & 0xF), (chunkZ << 4) + ((yzx >> 4) & 0xF)),
+                                javaPalette[paletteId]
                         ));
                     }
                 }
             }
 
-            BitArray bedrockData = BitArrayVersion.forBitsCeil(javaData.getBitsPerEntry()).createArray(BlockStorage.SIZE);
+            BitArray bedrockData = BitArrayVersion.forBitsCeil(bitsPerEntry).createArray(BlockStorage.SIZE);
             BlockStorage layer0 = new BlockStorage(bedrockData, bedrockPalette);
             BlockStorage[] layers;
 
-            // Convert data array from YZX to XZY coordinate order
-            if (waterloggedPaletteIds.isEmpty()) {
-                // No blocks are waterlogged, simply convert coordinate order
-                // This could probably be optimized further...
-                for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
-                    bedrockData.set(indexYZXtoXZY(yzx), javaData.get(yzx));
-                }
+            // Convert data array from YZX to XZY coordinate order, writing whole words at a time
+            SectionTranscoder.packBedrockStorage(javaValues, bedrockData);
 
+            if (waterloggedPaletteIds.isEmpty()) {
+                // No blocks are waterlogged, the coordinate conversion is all that is needed
                 layers = new BlockStorage[]{ layer0 };
             } else {
-                // The section contains waterlogged blocks, we need to convert coordinate order AND generate a V1 block storage for
+                // The section contains waterlogged blocks, we need to generate a V1 block storage for
                 // layer 1 with palette ID 1 indicating water
                 int[] layer1Data = new int[BlockStorage.SIZE >> 5];
                 for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
-                    int paletteId = javaData.get(yzx);
-                    int xzy = indexYZXtoXZY(yzx);
-                    bedrockData.set(xzy, paletteId);
+                    int paletteId = javaValues[yzx];
+                    int xzy = SectionTranscoder.indexYZXtoXZY(yzx);
 
                     if (waterloggedPaletteIds.get(paletteId)) {
                         layer1Data[xzy >> 5] |= 1 << (xzy & 0x1F);
@@ -256,7 +317,7 @@ public class ChunkUtils {
             sections[sectionY] = new ChunkSection(layers);
         }
 
-        CompoundTag[] blockEntities = column.getTileEntities();
+        CompoundTag[] blockEntities = cachedColumn != null ? cachedColumn.getTileEntities() : javaBlockEntities;
         NbtMap[] bedrockBlockEntities = new NbtMap[blockEntities.length + bedrockOnlyBlockEntities.size()];
         int i = 0;
         while (i < blockEntities.length) {
@@ -286,11 +347,7 @@ public class ChunkUtils {
             Position pos = new Position((int) tag.get("x").getValue(), (int) tag.get("y").getValue(), (int) tag.get("z").getValue());
 
             // Get Java blockstate ID from block entity position
-            int blockState = 0;
-            Chunk section = column.getChunks()[pos.getY() >> 4];
-            if (section != null) {
-                blockState = section.get(pos.getX() & 0xF, pos.getY() & 0xF, pos.getZ() & 0xF);
-            }
+            int blockState = getBlockStateAt(javaSections, cachedColumn, pos);
 
             bedrockBlockEntities[i] = blockEntityTranslator.getBlockEntityTag(tagName, tag, blockState);
 
@@ -310,6 +367,142 @@ public class ChunkUtils {
         return new ChunkData(sections, bedrockBlockEntities);
     }
 
+    /**
+     * Encode a translated column into the data of a LevelChunkPacket
+     *
+     * @param biomeData the Java biomes of the column
+     * @param chunkData the translated sections and block entities
+     * @return the encoded column
+     */
+    public static ChunkPayload encodePayload(int[] biomeData, ChunkData chunkData) throws IOException {
+        ChunkSection[] sections = chunkData.getSections();
+
+        // Find highest section
+        int sectionCount = sections.length - 1;
+        while (sectionCount >= 0 && sections[sectionCount] == null) {
+            sectionCount--;
+        }
+        sectionCount++;
+
+        // Block entities are encoded first, as their size can't be known in advance
+        ByteBuf blockEntityBuf = ByteBufAllocator.DEFAULT.buffer(chunkData.getBlockEntities().length * 64);
+        byte[] payload;
+        // Remember where each blob starts, for clients using the blob cache
+        int[] blobOffsets = new int[sectionCount + 2];
+        try {
+            NBTOutputStream nbtStream = NbtUtils.createNetworkWriter(new ByteBufOutputStream(blockEntityBuf));
+            for (NbtMap blockEntity : chunkData.getBlockEntities()) {
+                nbtStream.writeTag(blockEntity);
+            }
+
+            // Calculate the exact chunk size
+            int size = 0;
+            for (int i = 0; i < sectionCount; i++) {
+                ChunkSection section = sections[i];
+                size += (section != null ? section : EMPTY_SECTION).getNetworkSize();
+            }
+            size += 256; // Biomes
+            size += 1; // Border blocks
+            size += 1; // Extra data length (always 0)
+            size += blockEntityBuf.readableBytes();
+
+            // The protocol lib only accepts a byte[], so encode straight into the final array instead of copying
+            // the whole chunk out of a temporary buffer
+            payload = new byte[size];
+            ByteBuf byteBuf = Unpooled.wrappedBuffer(payload);
+            byteBuf.writerIndex(0);
+
+            for (int i = 0; i < sectionCount; i++) {
+                blobOffsets[i] = byteBuf.writerIndex();
+                ChunkSection section = sections[i];
+                (section != null ? section : EMPTY_SECTION).writeToNetwork(byteBuf);
+            }
+
+            blobOffsets[sectionCount] = byteBuf.writerIndex();
+            byteBuf.writeBytes(BiomeTranslator.toBedrockBiome(biomeData)); // Biomes - 256 bytes
+            blobOffsets[sectionCount + 1] = byteBuf.writerIndex();
+            byteBuf.writeByte(0); // Border blocks - Edu edition only
+            VarInts.writeUnsignedInt(byteBuf, 0); // extra data length, 0 for now
+            byteBuf.writeBytes(blockEntityBuf);
+        } finally {
+            blockEntityBuf.release(); // Release buffer to allow buffer pooling to be useful
+        }
+
+        return new ChunkPayload(sectionCount, payload, blobOffsets);
+    }
+
+    /**
+     * Send an encoded column, using the blob cache if the client supports it
+     *
+     * @param session the Bedrock session to send the column to
+     * @param chunkX the X coordinate of the column
+     * @param chunkZ the Z coordinate of the column
+     * @param payload the encoded column
+     */
+    public static void sendPayload(GeyserSession session, int chunkX, int chunkZ, ChunkPayload payload) {
+        LevelChunkPacket levelChunkPacket = new LevelChunkPacket();
+        levelChunkPacket.setSubChunksLength(payload.getSubChunksLength());
+        levelChunkPacket.setChunkX(chunkX);
+        levelChunkPacket.setChunkZ(chunkZ);
+        if (session.isClientCacheEnabled()) {
+            // Only send the hashes of the sections and biomes; the client will request anything it doesn't have
+            levelChunkPacket.setCachingEnabled(true);
+            for (long blobId : ChunkBlobCache.storeBlobs(session, payload)) {
+                levelChunkPacket.getBlobIds().add(blobId);
+            }
+            levelChunkPacket.setData(payload.getNonBlobData());
+        } else {
+            levelChunkPacket.setCachingEnabled(false);
+            levelChunkPacket.setData(payload.getData());
+        }
+        session.sendUpstreamPacket(levelChunkPacket);
+    }
+
+    /**
+     * Spawns the custom skulls of a column without translating it, for when the translated column is shared with other sessions.
+     *
+     * @param session the Bedrock session to spawn the skulls for
+     * @param column the Java column containing the skull block entities
+     */
+    public static void spawnCustomSkulls(GeyserSession session, Column column) {
+        if (!SkullBlockEntityTranslator.ALLOW_CUSTOM_SKULLS) {
+            return;
+        }
+
+        for (CompoundTag tag : column.getTileEntities()) {
+            if (tag.contains("SkullOwner")) {
+                Position pos = new Position((int) tag.get("x").getValue(), (int) tag.get("y").getValue(), (int) tag.get("z").getValue());
+                SkullBlockEntityTranslator.spawnPlayer(session, tag, getBlockStateAt(column.getChunks(), null, pos));
+            }
+        }
+    }
+
+    private static int getBlockStateAt(Chunk[] javaSections, CachedColumn cachedColumn, Position pos) {
+        Chunk section = javaSections[pos.getY() >> 4];
+        if (section != null) {
+            return section.get(pos.getX() & 0xF, pos.getY() & 0xF, pos.getZ() & 0xF);
+        }
+        if (cachedColumn != null) {
+            return cachedColumn.getBlockState(pos.getX() & 0xF, pos.getY(), pos.getZ() & 0xF);
+        }
+        return 0;
+    }
+
+    /**
+     * @return the block states of a Java palette, or null if it is the global palette
+     */
+    private static int[] toStateArray(Palette palette) {
+        if (palette instanceof GlobalPalette) {
+            return null;
+        }
+
+        int[] states = new int[palette.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = palette.idToState(i);
+        }
+        return states;
+    }
+
     public static void updateChunkPosition(GeyserSession session, Vector3i position) {
         Vector2i chunkPos = session.getLastChunkPosition();
         Vector2i newChunkPos = Vector2i.from(position.getX() >> 4, position.getZ() >> 4);
@@ -321,6 +514,8 @@ public class ChunkUtils {
             session.sendUpstreamPacket(chunkPublisherUpdatePacket);
 
             session.setLastChunkPosition(newChunkPos);
+            session.getChunkCache().updateCenter(newChunkPos.getX(), newChunkPos.getY());
+            session.getEntityCache().updateInterest();
         }
     }
 
@@ -344,28 +539,8 @@ public class ChunkUtils {
      * @param position the position of the block
      */
     public static void updateBlock(GeyserSession session, int blockState, Vector3i position) {
-        // Checks for item frames so they aren't tripped up and removed
-        long frameEntityId = ItemFrameEntity.getItemFrameEntityId(session, position);
-        if (frameEntityId != -1) {
-            // TODO: Very occasionally the item frame doesn't sync up when destroyed
-            Entity entity = session.getEntityCache().getEntityByJavaId(frameEntityId);
-            if (blockState == JAVA_AIR_ID && entity != null) { // Item frame is still present and no block overrides that; refresh it
-                ((ItemFrameEntity) entity).updateBlock(session);
-                return;
-            }
-
-            // Otherwise the item frame is gone
-            if (entity != null) {
-                session.getEntityCache().removeEntity(entity, false);
-            } else {
-                ItemFrameEntity.removePosition(session, position);
-            }
-        }
-
-        SkullPlayerEntity skull = session.getSkullCache().get(position);
-        if (skull != null && blockState != skull.getBlockState()) {
-            // Skull is gone
-            skull.despawnEntity(session, position);
+        if (!updateItemFrameAndSkull(session, blockState, position)) {
+            return;
         }
 
         int blockId = BlockTranslator.getBedrockBlockId(blockState);
@@ -408,6 +583,126 @@ public class ChunkUtils {
         session.getChunkCache().updateBlock(position.getX(), position.getY(), position.getZ(), blockState);
     }
 
+    /**
+     * Sends many block updates at once, such as those of a multi block change or an explosion. Columns that get at least
+     * {@link #BATCHED_UPDATE_RESEND_THRESHOLD} of these updates are sent again as a whole from the chunk cache, instead
+     * of sending two UpdateBlockPackets for every block.
+     * <p>
+     * Updates are batched per packet rather than per tick. The Java server already gathers the block changes of a
+     * tick into multi block changes, and holding them back until the end of the tick would let a re-sent column
+     * overwrite the single block updates sent in the meantime, unless those were held back as well.
+     *
+     * @param session the Bedrock session to send/register the blocks to
+     * @param blockStates the Java block states of the blocks
+     * @param positions the positions of the blocks, in the same order as the block states
+     */
+    public static void updateBlocks(GeyserSession session, int[] blockStates, Vector3i[] positions) {
+        if (positions.length < BATCHED_UPDATE_RESEND_THRESHOLD) {
+            for (int i = 0; i < positions.length; i++) {
+                updateBlock(session, blockStates[i], positions[i]);
+            }
+            return;
+        }
+
+        Long2IntOpenHashMap updatesPerColumn = new Long2IntOpenHashMap();
+        for (Vector3i position : positions) {
+            updatesPerColumn.addTo(MathUtils.chunkPositionToLong(position.getX() >> 4, position.getZ() >> 4), 1);
+        }
+
+        LongSet columnsToResend = new LongOpenHashSet();
+        for (Long2IntMap.Entry entry : updatesPerColumn.long2IntEntrySet()) {
+            long chunkPosition = entry.getLongKey();
+            // The whole column can only be sent again if it is cached
+            if (entry.getIntValue() >= BATCHED_UPDATE_RESEND_THRESHOLD
+                    && session.getChunkCache().getChunk((int) (chunkPosition >> 32), (int) chunkPosition) != null) {
+                columnsToResend.add(chunkPosition);
+            }
+        }
+
+        for (int i = 0; i < positions.length; i++) {
+            Vector3i position = positions[i];
+            int blockState = blockStates[i];
+            if (!columnsToResend.contains(MathUtils.chunkPositionToLong(position.getX() >> 4, position.getZ() >> 4))) {
+                updateBlock(session, blockState, position);
+                continue;
+            }
+
+            // Bedrock-only block entities are part of the re-sent column, so only entities need updating here
+            if (updateItemFrameAndSkull(session, blockState, position)) {
+                session.getChunkCache().updateBlock(position.getX(), position.getY(), position.getZ(), blockState);
+            }
+        }
+
+        for (long chunkPosition : columnsToResend) {
+            resendColumn(session, (int) (chunkPosition >> 32), (int) chunkPosition);
+        }
+    }
+
+    /**
+     * Translate a column from the chunk cache and send it again
+     *
+     * @param session the Bedrock session to send the column to
+     * @param chunkX the X coordinate of the column
+     * @param chunkZ the Z coordinate of the column
+     */
+    public static void resendColumn(GeyserSession session, int chunkX, int chunkZ) {
+        // Translated right away so that the column can't overwrite block updates that are sent after it.
+        // The cache already contains anything still waiting to be translated for this column, so that is discarded
+        try {
+            session.getChunkTranslationQueue().sendNow(chunkX, chunkZ, () -> translateCachedColumn(session, chunkX, chunkZ));
+        } catch (Exception e) {
+            session.getConnector().getLogger().error("Unable to resend chunk " + chunkX + ", " + chunkZ, e);
+        }
+    }
+
+    /**
+     * Translate and encode a whole column from the chunk cache
+     *
+     * @param session the Bedrock session the column is translated for
+     * @param chunkX the X coordinate of the column
+     * @param chunkZ the Z coordinate of the column
+     * @return the encoded column, or null if it isn't cached
+     */
+    public static ChunkPayload translateCachedColumn(GeyserSession session, int chunkX, int chunkZ) throws IOException {
+        CachedColumn cachedColumn = session.getChunkCache().getChunk(chunkX, chunkZ);
+        if (cachedColumn == null) {
+            return null;
+        }
+        return encodePayload(cachedColumn.getBiomeData(), translateToBedrock(session, cachedColumn));
+    }
+
+    /**
+     * Update the item frame and custom skull at a position that had its block changed
+     *
+     * @return false if an item frame is still present there, in which case the block shouldn't be updated
+     */
+    private static boolean updateItemFrameAndSkull(GeyserSession session, int blockState, Vector3i position) {
+        // Checks for item frames so they aren't tripped up and removed
+        long frameEntityId = ItemFrameEntity.getItemFrameEntityId(session, position);
+        if (frameEntityId != -1) {
+            // TODO: Very occasionally the item frame doesn't sync up when destroyed
+            Entity entity = session.getEntityCache().getEntityByJavaId(frameEntityId);
+            if (blockState == JAVA_AIR_ID && entity != null) { // Item frame is still present and no block overrides that; refresh it
+                ((ItemFrameEntity) entity).updateBlock(session);
+                return false;
+            }
+
+            // Otherwise the item frame is gone
+            if (entity != null) {
+                session.getEntityCache().removeEntity(entity, false);
+            } else {
+                ItemFrameEntity.removePosition(session, position);
+            }
+        }
+
+        SkullPlayerEntity skull = session.getSkullCache().get(position);
+        if (skull != null && blockState != skull.getBlockState()) {
+            // Skull is gone
+            skull.despawnEntity(session, position);
+        }
+        return true;
+    }
+
     public static void sendEmptyChunks(GeyserSession session, Vector3i position, int radius, boolean forceUpdate) {
         int chunkX = position.getX() >> 4;
         int chunkZ = position.getZ() >> 4;
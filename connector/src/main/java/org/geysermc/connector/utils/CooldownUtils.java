@@ -29,8 +29,6 @@ import com.nukkitx.protocol.bedrock.packet.SetTitlePacket;
 import org.geysermc.connector.GeyserConnector;
 import org.geysermc.connector.network.session.GeyserSession;
 
-import java.util.concurrent.TimeUnit;
-
 /**
  * Manages the sending of a cooldown indicator to the Bedrock player as there is no cooldown indicator in Bedrock.
  * Much of the work here is from the wonderful folks from ViaRewind: https://github.com/ViaVersion/ViaRewind
@@ -76,7 +74,7 @@ public class CooldownUtils {
         titlePacket.setStayTime(2);
         session.sendUpstreamPacket(titlePacket);
         if (hasCooldown(session)) {
-            session.getConnector().getGeneralThreadPool().schedule(() -> computeCooldown(session, lastHitTime), 50, TimeUnit.MILLISECONDS); // Updated per tick. 1000 divided by 20 ticks equals 50
+            session.getConnector().getTickScheduler().schedule(session, "cooldown", () -> computeCooldown(session, lastHitTime), 1); // Updated per tick
         } else {
             SetTitlePacket removeTitlePacket = new SetTitlePacket();
             removeTitlePacket.setType(SetTitlePacket.Type.SUBTITLE);
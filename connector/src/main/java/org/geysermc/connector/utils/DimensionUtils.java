@@ -60,13 +60,16 @@ public class DimensionUtils {
         if (javaDimension.equals(session.getDimension()))
             return;
 
-        if (session.getMovementSendIfIdle() != null) {
-            session.getMovementSendIfIdle().cancel(true);
-        }
+        // Don't send idle movement until the player moves in the new dimension
+        session.setLastMovementTime(0);
 
         session.getEntityCache().removeAllEntities();
         session.getItemFrameCache().clear();
         session.getSkullCache().clear();
+        // Columns of the previous dimension would otherwise stay cached until the memory limit is reached
+        session.getChunkCache().clear();
+        // Queued and running translations of the previous dimension would otherwise be drawn into the new one
+        session.getChunkTranslationQueue().clear();
         if (session.getPendingDimSwitches().getAndIncrement() > 0) {
             ChunkUtils.sendEmptyChunks(session, player.getPosition().toInt(), 3, true);
         }
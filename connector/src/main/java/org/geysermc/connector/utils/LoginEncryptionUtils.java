@@ -29,6 +29,8 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.nimbusds.jose.JWSObject;
 import com.nukkitx.network.util.Preconditions;
 import com.nukkitx.protocol.bedrock.packet.LoginPacket;
@@ -57,10 +59,49 @@ import java.security.PublicKey;
 import java.security.interfaces.ECPublicKey;
 import java.security.spec.ECGenParameterSpec;
 import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 public class LoginEncryptionUtils {
     private static final ObjectMapper JSON_MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
+    /**
+     * Verifying login chains and generating the server key pair is done here rather than on the network threads,
+     * so a wave of logins can't stall packet handling for players that are already connected
+     */
+    private static final ThreadPoolExecutor CRYPTO_EXECUTOR;
+    /**
+     * Logins waiting beyond this are turned away instead of piling up
+     */
+    private static final int MAX_QUEUED_LOGINS = 512;
+    /**
+     * Mojang signed certificates that have already been verified. Many players' chains share the same one.
+     */
+    private static final Cache<String, Boolean> VERIFIED_CERTIFICATES = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .maximumSize(1024)
+            .build();
+
+    private static final LongAdder LOGINS = new LongAdder();
+    private static final LongAdder REJECTED_LOGINS = new LongAdder();
+    private static final LongAdder QUEUE_NANOS = new LongAdder();
+    private static final LongAdder VERIFY_NANOS = new LongAdder();
+    private static final LongAccumulator MAX_QUEUE_NANOS = new LongAccumulator(Math::max, 0);
+    private static final LongAdder CERTIFICATE_CACHE_HITS = new LongAdder();
+
+    static {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadId = new AtomicInteger();
+        CRYPTO_EXECUTOR = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_LOGINS), runnable -> {
+                    Thread thread = new Thread(runnable, "Geyser Login Crypto Thread #" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
     private static boolean validateChainData(JsonNode data) throws Exception {
         ECPublicKey lastKey = null;
         boolean validChain = false;
@@ -68,7 +109,7 @@ public class LoginEncryptionUtils {
             JWSObject jwt = JWSObject.parse(node.asText());
 
             if (!validChain) {
-                validChain = EncryptionUtils.verifyJwt(jwt, EncryptionUtils.getMojangPublicKey());
+                validChain = verifyMojangSigned(jwt, node.asText());
             }
 
             if (lastKey != null) {
@@ -83,7 +124,30 @@ public class LoginEncryptionUtils {
         return validChain;
     }
 
-    public static void encryptPlayerConnection(GeyserConnector connector, GeyserSession session, LoginPacket loginPacket) {
+    private static boolean verifyMojangSigned(JWSObject jwt, String serializedJwt) throws Exception {
+        boolean cache = GeyserConnector.getInstance().getConfig().isCacheLoginCertificates();
+        if (cache && VERIFIED_CERTIFICATES.getIfPresent(serializedJwt) != null) {
+            CERTIFICATE_CACHE_HITS.increment();
+            return true;
+        }
+
+        boolean verified = EncryptionUtils.verifyJwt(jwt, EncryptionUtils.getMojangPublicKey());
+        if (verified && cache) {
+            VERIFIED_CERTIFICATES.put(serializedJwt, true);
+        }
+        return verified;
+    }
+
+    /**
+     * Verifies the login chain and derives the encryption key on the login crypto pool. Encryption is then enabled on
+     * the session's network loop, which reads and writes through the cipher, and the future is completed there.
+     *
+     * @param connector The GeyserConnector
+     * @param session The session logging in
+     * @param loginPacket The login packet sent by the client
+     * @return A future completed with whether the login can continue
+     */
+    public static CompletableFuture<Boolean> encryptPlayerConnection(GeyserConnector connector, GeyserSession session, LoginPacket loginPacket) {
         JsonNode certData;
         try {
             certData = JSON_MAPPER.readTree(loginPacket.getChainData().toByteArray());
@@ -96,10 +160,57 @@ public class LoginEncryptionUtils {
             throw new RuntimeException("Certificate data is not valid");
         }
 
-        encryptConnectionWithCert(connector, session, loginPacket.getSkinData().toString(), certChainData);
+        String clientData = loginPacket.getSkinData().toString();
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            CRYPTO_EXECUTOR.execute(() -> {
+                long startedAt = System.nanoTime();
+                QUEUE_NANOS.add(startedAt - queuedAt);
+                MAX_QUEUE_NANOS.accumulate(startedAt - queuedAt);
+                Runnable handshake;
+                try {
+                    handshake = session.isClosed() ? null : encryptConnectionWithCert(connector, session, clientData, certChainData);
+                } catch (Throwable throwable) {
+                    connector.getLogger().error("Unable to complete login", throwable);
+                    handshake = null;
+                } finally {
+                    VERIFY_NANOS.add(System.nanoTime() - startedAt);
+                    LOGINS.increment();
+                }
+
+                if (handshake == null) {
+                    future.complete(false);
+                    return;
+                }
+                Runnable finishHandshake = handshake;
+                try {
+                    session.getUpstream().getSession().getEventLoop().execute(() -> {
+                        try {
+                            finishHandshake.run();
+                            future.complete(true);
+                        } catch (Throwable throwable) {
+                            connector.getLogger().error("Unable to complete login", throwable);
+                            future.complete(false);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // The connection is already closing
+                    future.complete(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            REJECTED_LOGINS.increment();
+            session.disconnect("disconnectionScreen.serverFull");
+            future.complete(false);
+        }
+        return future;
     }
 
-    private static void encryptConnectionWithCert(GeyserConnector connector, GeyserSession session, String clientData, JsonNode certChainData) {
+    /**
+     * @return the rest of the handshake, to be run on the session's network loop, or null if the login was rejected
+     */
+    private static Runnable encryptConnectionWithCert(GeyserConnector connector, GeyserSession session, String clientData, JsonNode certChainData) {
         try {
             boolean validChain = validateChainData(certChainData);
 
@@ -107,7 +218,7 @@ public class LoginEncryptionUtils {
 
             if (!validChain && !session.getConnector().getConfig().isEnableProxyConnections()) {
                 session.disconnect(LanguageUtils.getLocaleStringLog("geyser.network.remote.invalid_xbox_account"));
-                return;
+                return null;
             }
             JWSObject jwt = JWSObject.parse(certChainData.get(certChainData.size() - 1).asText());
             JsonNode payload = JSON_MAPPER.readTree(jwt.getPayload().toBytes());
@@ -134,26 +245,70 @@ public class LoginEncryptionUtils {
             session.setClientData(JSON_MAPPER.convertValue(JSON_MAPPER.readTree(clientJwt.getPayload().toBytes()), BedrockClientData.class));
 
             if (EncryptionUtils.canUseEncryption()) {
-                LoginEncryptionUtils.startEncryptionHandshake(session, identityPublicKey);
+                return LoginEncryptionUtils.prepareEncryptionHandshake(session, identityPublicKey);
             }
+            return () -> { };
         } catch (Exception ex) {
             session.disconnect("disconnectionScreen.internalError.cantConnect");
             throw new RuntimeException("Unable to complete login", ex);
         }
     }
 
-    private static void startEncryptionHandshake(GeyserSession session, PublicKey key) throws Exception {
+    /**
+     * Derive the encryption key and sign the handshake, which is the expensive part of the handshake
+     *
+     * @return enables encryption and sends the handshake; must run on the session's network loop
+     */
+    private static Runnable prepareEncryptionHandshake(GeyserSession session, PublicKey key) throws Exception {
         KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
         generator.initialize(new ECGenParameterSpec("secp384r1"));
         KeyPair serverKeyPair = generator.generateKeyPair();
 
         byte[] token = EncryptionUtils.generateRandomToken();
         SecretKey encryptionKey = EncryptionUtils.getSecretKey(serverKeyPair.getPrivate(), key, token);
-        session.getUpstream().getSession().enableEncryption(encryptionKey);
 
         ServerToClientHandshakePacket packet = new ServerToClientHandshakePacket();
         packet.setJwt(EncryptionUtils.createHandshakeJwt(serverKeyPair, token).serialize());
-        session.sendUpstreamPacketImmediately(packet);
+        return () -> {
+            session.getUpstream().getSession().enableEncryption(encryptionKey);
+            session.sendUpstreamPacketImmediately(packet);
+        };
+    }
+
+    public static long getLogins() {
+        return LOGINS.sum();
+    }
+
+    public static long getRejectedLogins() {
+        return REJECTED_LOGINS.sum();
+    }
+
+    public static int getQueuedLogins() {
+        return CRYPTO_EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * @return The average time in milliseconds logins waited for a crypto thread
+     */
+    public static double getAverageQueueMillis() {
+        long logins = getLogins();
+        return logins == 0 ? 0 : QUEUE_NANOS.sum() / (double) logins / 1_000_000;
+    }
+
+    public static double getMaxQueueMillis() {
+        return MAX_QUEUE_NANOS.get() / 1_000_000d;
+    }
+
+    /**
+     * @return The average time in milliseconds spent verifying a login and setting up its encryption
+     */
+    public static double getAverageVerifyMillis() {
+        long logins = getLogins();
+        return logins == 0 ? 0 : VERIFY_NANOS.sum() / (double) logins / 1_000_000;
+    }
+
+    public static long getCertificateCacheHits() {
+        return CERTIFICATE_CACHE_HITS.sum();
     }
 
     private static int AUTH_FORM_ID = 1336;
@@ -28,6 +28,9 @@ package org.geysermc.connector.utils;
 import org.geysermc.connector.GeyserConnector;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.ZipFile;
@@ -46,7 +49,18 @@ public class ResourcePack {
      */
     public static final int CHUNK_SIZE = 102400;
 
+    /**
+     * How fast a single client is sent resource pack data, in bytes per second
+     */
+    public static final int TRANSFER_RATE_PER_CLIENT = 4 * 1024 * 1024;
+
     private byte[] sha256;
+    /**
+     * The pack file split into the chunks sent to clients, read once when the pack is loaded and shared between every
+     * client downloading the pack
+     */
+    private byte[][] chunks;
+    private long length;
     private File file;
     private ResourcePackManifest manifest;
     private ResourcePackManifest.Version version;
@@ -88,7 +102,14 @@ public class ResourcePack {
                             }
                         }
                     });
+
+                    if (pack.file != null) {
+                        pack.loadChunks();
+                    }
                 } catch (Exception e) {
+                    if (pack.manifest != null) {
+                        PACKS.remove(pack.getManifest().getHeader().getUuid().toString());
+                    }
                     GeyserConnector.getInstance().getLogger().error(LanguageUtils.getLocaleStringLog("geyser.resource_pack.broken", file.getName()));
                     e.printStackTrace();
                 }
@@ -96,6 +117,40 @@ public class ResourcePack {
         }
     }
 
+    private void loadChunks() throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        length = data.length;
+        chunks = new byte[(data.length + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+        for (int i = 0; i < chunks.length; i++) {
+            int offset = i * CHUNK_SIZE;
+            chunks[i] = Arrays.copyOfRange(data, offset, Math.min(offset + CHUNK_SIZE, data.length));
+        }
+    }
+
+    /**
+     * Get a chunk of the pack to send to a client. Chunks are only built once, so the same array is sent to every client.
+     *
+     * @param index The index of the chunk
+     * @return The chunk's data, or an empty array if the index is out of range
+     */
+    public byte[] getChunk(int index) {
+        if (index < 0 || index >= chunks.length) {
+            return new byte[0];
+        }
+        return chunks[index];
+    }
+
+    public int getChunkCount() {
+        return chunks.length;
+    }
+
+    /**
+     * @return The size of the pack in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
     public byte[] getSha256() {
         return sha256;
     }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.Chunk;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class CachedChunkSectionTest {
+
+    private final Random random = new Random(0);
+
+    @Test
+    public void setMatchesReference() {
+        // Enough distinct states to go through every palette size and into direct storage
+        for (int states : new int[] {2, 3, 5, 9, 17, 33, 65, 129, 257, 1000}) {
+            int[] expected = new int[4096];
+            CachedChunkSection section = CachedChunkSection.uniform(0);
+            for (int i = 0; i < 20000; i++) {
+                int index = random.nextInt(4096);
+                int blockState = random.nextInt(states);
+                expected[index] = blockState;
+                section = section.set(index, blockState);
+            }
+            assertSection(expected, section);
+        }
+    }
+
+    @Test
+    public void uniformSectionsAreNotModified() {
+        CachedChunkSection uniform = CachedChunkSection.uniform(7);
+        CachedChunkSection changed = uniform.set(123, 8);
+
+        Assert.assertNotSame(uniform, changed);
+        Assert.assertSame(uniform, CachedChunkSection.uniform(7));
+        for (int index = 0; index < 4096; index++) {
+            Assert.assertEquals(7, uniform.get(index));
+            Assert.assertEquals(index == 123 ? 8 : 7, changed.get(index));
+        }
+    }
+
+    @Test
+    public void copyDoesNotSeeLaterWrites() {
+        CachedChunkSection section = CachedChunkSection.uniform(0).set(0, 1);
+        CachedChunkSection copy = section.copy();
+        section = section.set(1, 1);
+
+        Assert.assertEquals(1, section.get(1));
+        Assert.assertEquals(0, copy.get(1));
+    }
+
+    @Test
+    public void fromJavaMatchesChunk() {
+        for (int states : new int[] {1, 4, 16, 200, 1000}) {
+            Chunk chunk = new Chunk();
+            int[] expected = new int[4096];
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        int blockState = 1 + random.nextInt(states);
+                        chunk.set(x, y, z, blockState);
+                        expected[CachedChunkSection.index(x, y, z)] = blockState;
+                    }
+                }
+            }
+            assertSection(expected, CachedChunkSection.fromJava(chunk));
+        }
+    }
+
+    private static void assertSection(int[] expected, CachedChunkSection section) {
+        int[] values = new int[4096];
+        section.unpack(values);
+        int[] palette = section.getPalette();
+        for (int index = 0; index < 4096; index++) {
+            Assert.assertEquals("get differs at " + index, expected[index], section.get(index));
+            int unpacked = palette == null ? values[index] : palette[values[index]];
+            Assert.assertEquals("unpack differs at " + index, expected[index], unpacked);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.network.translators.world.chunk;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.BitStorage;
+import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArray;
+import org.geysermc.connector.network.translators.world.chunk.bitarray.BitArrayVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class SectionTranscoderTest {
+
+    private static final int[] JAVA_BITS = {1, 2, 3, 4, 5, 6, 7, 8, 14, 15};
+
+    private final Random random = new Random(0);
+
+    @Test
+    public void indexSwapIsItsOwnInverse() {
+        for (int index = 0; index < BlockStorage.SIZE; index++) {
+            Assert.assertEquals(index, SectionTranscoder.indexYZXtoXZY(SectionTranscoder.indexYZXtoXZY(index)));
+        }
+    }
+
+    @Test
+    public void unpackJavaStorage() {
+        for (int bits : JAVA_BITS) {
+            BitStorage storage = new BitStorage(bits, BlockStorage.SIZE);
+            for (int index = 0; index < BlockStorage.SIZE; index++) {
+                storage.set(index, random.nextInt(1 << bits));
+            }
+
+            int[] values = new int[BlockStorage.SIZE];
+            SectionTranscoder.unpackJavaStorage(storage, values);
+            for (int index = 0; index < BlockStorage.SIZE; index++) {
+                Assert.assertEquals("Unpacked value differs at " + bits + " bits", storage.get(index), values[index]);
+            }
+        }
+    }
+
+    @Test
+    public void packBedrockStorage() {
+        // Includes the padded 3, 5 and 6 bit versions
+        for (BitArrayVersion version : BitArrayVersion.values()) {
+            int[] yzxValues = new int[BlockStorage.SIZE];
+            for (int index = 0; index < BlockStorage.SIZE; index++) {
+                yzxValues[index] = random.nextInt(version.getMaxEntryValue() + 1);
+            }
+
+            BitArray expected = version.createArray(BlockStorage.SIZE);
+            for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
+                expected.set(SectionTranscoder.indexYZXtoXZY(yzx), yzxValues[yzx]);
+            }
+
+            BitArray actual = version.createArray(BlockStorage.SIZE);
+            SectionTranscoder.packBedrockStorage(yzxValues, actual);
+            Assert.assertArrayEquals("Packed words differ for " + version, expected.getWords(), actual.getWords());
+        }
+    }
+
+    @Test
+    public void javaToBedrockRoundTrip() {
+        for (int bits : JAVA_BITS) {
+            BitStorage storage = new BitStorage(bits, BlockStorage.SIZE);
+            for (int index = 0; index < BlockStorage.SIZE; index++) {
+                storage.set(index, random.nextInt(1 << bits));
+            }
+
+            int[] values = new int[BlockStorage.SIZE];
+            SectionTranscoder.unpackJavaStorage(storage, values);
+            BitArray bitArray = BitArrayVersion.forBitsCeil(bits).createArray(BlockStorage.SIZE);
+            SectionTranscoder.packBedrockStorage(values, bitArray);
+
+            for (int yzx = 0; yzx < BlockStorage.SIZE; yzx++) {
+                Assert.assertEquals("Round trip differs at " + bits + " bits", storage.get(yzx), bitArray.get(SectionTranscoder.indexYZXtoXZY(yzx)));
+            }
+        }
+    }
+}
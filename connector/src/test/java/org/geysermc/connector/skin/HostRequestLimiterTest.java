@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2019-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/Geyser
+ */
+
+package org.geysermc.connector.skin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HostRequestLimiterTest {
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private String baseUrl;
+
+    /**
+     * Requests to /slow wait on this before answering
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger fastRequests = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/slow", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            respond(exchange, "slow");
+        });
+        server.createContext("/fast", exchange -> {
+            fastRequests.incrementAndGet();
+            respond(exchange, "fast");
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        executor = Executors.newCachedThreadPool();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        release.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void limitsRequestsPerHost() throws Exception {
+        HostRequestLimiter limiter = new HostRequestLimiter(executor, scheduler, 2, 10000);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(limiter.submit(baseUrl + "/slow", () -> get(baseUrl + "/slow")));
+        }
+
+        waitFor(() -> inFlight.get() == 2);
+        // Give queued requests the chance to wrongly start
+        Thread.sleep(100);
+        Assert.assertEquals(2, inFlight.get());
+        Assert.assertEquals(1, limiter.getHostCount());
+
+        release.countDown();
+        for (CompletableFuture<String> future : futures) {
+            Assert.assertEquals("slow", future.get(10, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(2, maxInFlight.get());
+
+        // The queue of the host is removed once it has nothing left to run
+        waitFor(() -> limiter.getHostCount() == 0);
+    }
+
+    @Test
+    public void queuedRequestsTimeOut() throws Exception {
+        HostRequestLimiter limiter = new HostRequestLimiter(executor, scheduler, 1, 50);
+        CompletableFuture<String> slow = limiter.submit(baseUrl + "/slow", () -> get(baseUrl + "/slow"));
+        CompletableFuture<String> queued = limiter.submit(baseUrl + "/fast", () -> get(baseUrl + "/fast"));
+
+        waitFor(() -> inFlight.get() == 1);
+        // The queued request times out while the slow one is still running
+        try {
+            queued.get(5, TimeUnit.SECONDS);
+            Assert.fail("The queued request should have timed out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        Assert.assertFalse(slow.isDone());
+        release.countDown();
+
+        Assert.assertEquals("slow", slow.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals("A timed out request must not run", 0, fastRequests.get());
+        waitFor(() -> limiter.getHostCount() == 0);
+
+        // The host can be used again afterwards
+        Assert.assertEquals("fast", limiter.submit(baseUrl + "/fast", () -> get(baseUrl + "/fast")).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failedRequestsCompleteExceptionally() throws Exception {
+        HostRequestLimiter limiter = new HostRequestLimiter(executor, scheduler, 1, 10000);
+        CompletableFuture<String> failed = limiter.submit(baseUrl + "/missing", () -> get(baseUrl + "/missing"));
+        try {
+            failed.get(10, TimeUnit.SECONDS);
+            Assert.fail("The request should have failed");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof UncheckedIOException);
+        }
+
+        // A failed request frees its slot
+        Assert.assertEquals("fast", limiter.submit(baseUrl + "/fast", () -> get(baseUrl + "/fast")).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void rejectedRequestsFreeTheirSlot() throws Exception {
+        AtomicInteger rejections = new AtomicInteger(1);
+        Executor rejecting = command -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("Rejected for the test");
+            }
+            executor.execute(command);
+        };
+        HostRequestLimiter limiter = new HostRequestLimiter(rejecting, scheduler, 1, 10000);
+        CompletableFuture<String> rejected = limiter.submit(baseUrl + "/fast", () -> get(baseUrl + "/fast"));
+        try {
+            rejected.get(10, TimeUnit.SECONDS);
+            Assert.fail("The request should have been rejected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        Assert.assertEquals(0, limiter.getHostCount());
+
+        // The slot of the rejected request is free again
+        Assert.assertEquals("fast", limiter.submit(baseUrl + "/fast", () -> get(baseUrl + "/fast")).get(10, TimeUnit.SECONDS));
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private static String get(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(15000);
+            try (InputStream inputStream = connection.getInputStream()) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                byte[] buffer = new byte[256];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+                return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.isMet()) {
+            if (System.nanoTime() > deadline) {
+                Assert.fail("Timed out waiting for a condition");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private interface Condition {
+        boolean isMet();
+    }
+}